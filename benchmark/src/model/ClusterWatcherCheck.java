@@ -0,0 +1,282 @@
+package model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import controller.GraphException;
+import controller.InputType;
+import io.kubernetes.client.openapi.ApiException;
+
+/**
+ * This class checks, that the graph, which is kept up to date by the events of a cluster watcher, equals the graph of a full transformation.
+ * A stub api server serves a namespace with pods, services and endpoints and streams an added, an updated and a deleted pod, an added service
+ * and an updated and an added endpoint to the watches. The watched graph is compared with a full transformation of the cluster before and after the events.
+ * Finally a namespace label selector, which matches no namespace, has to result in an empty graph for both.
+ * Run with java -cp target/benchmarks.jar model.ClusterWatcherCheck, the exit status is 1 if the graphs differ.
+ * @author Alexis T. Bernhard
+ *
+ */
+public class ClusterWatcherCheck {
+
+	/**
+	 * The time to wait for the watches to receive the events in milliseconds.
+	 */
+	private static final long EVENT_TIMEOUT = 10000;
+
+	/**
+	 * The time, after which an idle watch request is answered without any events, in milliseconds.
+	 */
+	private static final long IDLE_WATCH = 500;
+
+	/**
+	 * The namespace label selector, which matches no namespace of the stub api server.
+	 */
+	private static final String EMPTY_SELECTOR = "team=none";
+
+	/**
+	 * The lists of the resources before the events by the name of the resource.
+	 */
+	private static final Map<String, String> INITIAL_LISTS = Map.of(
+			"pods", list("PodList", 1, pod("a", "10.0.0.1", 1), pod("b", "10.0.0.2", 1)),
+			"services", list("ServiceList", 1, service("svc", 1), service("kubernetes", 1)),
+			"endpoints", list("EndpointsList", 1, endpoints("svc", 1, "a", "10.0.0.1")));
+
+	/**
+	 * The lists of the resources after the events by the name of the resource.
+	 */
+	private static final Map<String, String> CHANGED_LISTS = Map.of(
+			"pods", list("PodList", 2, pod("b", "10.0.0.4", 2), pod("c", "10.0.0.3", 2)),
+			"services", list("ServiceList", 2, service("svc", 1), service("svc2", 2), service("kubernetes", 1)),
+			"endpoints", list("EndpointsList", 2, endpoints("svc", 2, "b", "10.0.0.4", "c", "10.0.0.3"), endpoints("svc2", 2, "c", "10.0.0.3")));
+
+	/**
+	 * The events, which change the initial into the changed lists, by the name of the resource.
+	 */
+	private static final Map<String, String> EVENTS = Map.of(
+			"pods", event("ADDED", pod("c", "10.0.0.3", 2)) + event("MODIFIED", pod("b", "10.0.0.4", 2)) + event("DELETED", pod("a", "10.0.0.1", 2)),
+			"services", event("ADDED", service("svc2", 2)),
+			"endpoints", event("MODIFIED", endpoints("svc", 2, "b", "10.0.0.4", "c", "10.0.0.3")) + event("ADDED", endpoints("svc2", 2, "c", "10.0.0.3")));
+
+	/**
+	 * This boolean indicates if the stub api server serves the changed lists and streams the events.
+	 */
+	private static volatile boolean changed;
+
+	/**
+	 * The names of the resources, whose events were streamed to a watch.
+	 */
+	private static Set<String> streamed = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Starts the stub api server, watches it and compares the watched graph with a full transformation before and after the events.
+	 * @param args no arguments
+	 * @throws IOException thrown if the stub api server can't be started
+	 * @throws ApiException thrown if a call to the stub api server fails
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 * @throws InterruptedException thrown if the check is interrupted
+	 */
+	public static void main(String[] args) throws IOException, ApiException, GraphException, InterruptedException {
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		ExecutorService serverThreads = Executors.newCachedThreadPool();
+		server.createContext("/", ClusterWatcherCheck::handle);
+		server.setExecutor(serverThreads);
+		server.start();
+		boolean same;
+		ClusterWatcher watcher = null;
+		try {
+			KubClient client = new KubClient();
+			client.setAuthmethod(InputType.URL);
+			client.setAuthenticationData(new String[] {"http://127.0.0.1:" + server.getAddress().getPort(), "false"});
+			client.start();
+			watcher = new ClusterWatcher(client, true);
+			watcher.start();
+			Graph watched = new Graph();
+			watched.generateAdjacencyMatrices();
+			watcher.applyChanges(watched);
+			same = compare("before the events", watched, transform(client));
+
+			changed = true;
+			long deadline = System.currentTimeMillis() + EVENT_TIMEOUT;
+			while (streamed.size() < EVENTS.size() && System.currentTimeMillis() < deadline) {
+				Thread.sleep(100);
+			}
+			// the streamed events are handled by the informer threads after they were sent
+			Thread.sleep(IDLE_WATCH);
+			watcher.applyChanges(watched);
+			same &= compare("after the events", watched, transform(client));
+			watcher.stop();
+
+			client.setNamespaceLabelSelector(EMPTY_SELECTOR);
+			watcher = new ClusterWatcher(client, true);
+			watcher.start();
+			watched = new Graph();
+			watched.generateAdjacencyMatrices();
+			Thread.sleep(IDLE_WATCH);
+			watcher.applyChanges(watched);
+			same &= compare("without a selected namespace", watched, transform(client));
+		} finally {
+			if (watcher != null) {
+				watcher.stop();
+			}
+			server.stop(0);
+			serverThreads.shutdownNow();
+		}
+		System.exit(same ? 0 : 1);
+	}
+
+	/**
+	 * Transforms the whole cluster served by the stub api server into a new graph.
+	 * @param client the kubernetes client connected to the stub api server
+	 * @return the graph of the cluster
+	 * @throws ApiException thrown if a list call to the stub api server fails
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 * @throws InterruptedException thrown if the transformation is interrupted
+	 */
+	private static Graph transform(KubClient client) throws ApiException, GraphException, InterruptedException {
+		Graph graph = new Graph();
+		new Transformator().transform(client, graph, new HttpConnector(), false, true);
+		return graph;
+	}
+
+	/**
+	 * Compares the vertices and edges of the watched and the transformed graph by the names of the vertices and prints the differences.
+	 * @param name the name of the comparison
+	 * @param watched the graph kept up to date by the cluster watcher
+	 * @param transformed the graph of the full transformation
+	 * @return true if the graphs have the same vertices and edges
+	 */
+	private static boolean compare(String name, Graph watched, Graph transformed) {
+		Set<String> watchedElements = describe(watched);
+		Set<String> transformedElements = describe(transformed);
+		boolean same = watchedElements.equals(transformedElements);
+		System.out.println(name + ": " + (same ? "the graphs are equal " + transformedElements : "the watched graph " + watchedElements + " differs from the transformed graph " + transformedElements));
+		return same;
+	}
+
+	/**
+	 * Describes the vertices and edges of a graph by the names of the vertices, independent of their order.
+	 * @param graph the graph
+	 * @return the sorted descriptions of the vertices and edges
+	 */
+	private static Set<String> describe(Graph graph) {
+		Set<String> res = new TreeSet<>();
+		for (int v = 0; v < graph.getVertices().size(); v++) {
+			String source = graph.getVertices().get(v).getName();
+			res.add(source);
+			for (int k = 0; k < graph.getOutDegree(v); k++) {
+				res.add(source + " -> " + graph.getVertices().get(graph.getOutNeighbour(v, k)).getName());
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Answers a request to the stub api server.
+	 * A list request is answered with the initial or the changed list, the namespaces matching the empty selector are none. A watch request is answered with the events of its resource once they are due,
+	 * otherwise it is answered without any events after a while, so the informer starts a new watch.
+	 * @param exchange the request and its response
+	 * @throws IOException thrown if the response can't be sent
+	 */
+	private static void handle(HttpExchange exchange) throws IOException {
+		String path = exchange.getRequestURI().getPath();
+		String query = exchange.getRequestURI().getQuery();
+		String resource = path.substring(path.lastIndexOf('/') + 1);
+		String body;
+		if (path.equals("/api/v1/namespaces")) {
+			boolean empty = query != null && query.contains(EMPTY_SELECTOR);
+			body = empty ? list("NamespaceList", 1) : list("NamespaceList", 1, "{\"metadata\":{\"name\":\"default\"}}");
+		} else if (query == null || !query.contains("watch=true")) {
+			body = (changed ? CHANGED_LISTS : INITIAL_LISTS).getOrDefault(resource, list("List", 1));
+		} else if (changed && EVENTS.containsKey(resource) && streamed.add(resource)) {
+			body = EVENTS.get(resource);
+		} else {
+			try {
+				Thread.sleep(IDLE_WATCH);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			body = "";
+		}
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, bytes.length == 0 ? -1 : bytes.length);
+		if (bytes.length > 0) {
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		}
+		exchange.close();
+	}
+
+	/**
+	 * Creates the json of a list of resources.
+	 * @param kind the kind of the list
+	 * @param version the resource version of the list
+	 * @param items the json of the resources
+	 * @return the json of the list
+	 */
+	private static String list(String kind, int version, String... items) {
+		return "{\"kind\":\"" + kind + "\",\"metadata\":{\"resourceVersion\":\"" + version + "\"},\"items\":[" + String.join(",", items) + "]}";
+	}
+
+	/**
+	 * Creates the json of a watch event.
+	 * @param type the type of the event
+	 * @param object the json of the changed resource
+	 * @return the json of the event followed by a line break
+	 */
+	private static String event(String type, String object) {
+		return "{\"type\":\"" + type + "\",\"object\":" + object + "}\n";
+	}
+
+	/**
+	 * Creates the json of a pod in the namespace default.
+	 * @param name the name of the pod
+	 * @param ip the ip of the pod
+	 * @param version the resource version of the pod
+	 * @return the json of the pod
+	 */
+	private static String pod(String name, String ip, int version) {
+		return "{\"metadata\":{\"name\":\"" + name + "\",\"namespace\":\"default\",\"resourceVersion\":\"" + version + "\"},\"spec\":{\"nodeName\":\"node\"},"
+				+ "\"status\":{\"podIP\":\"" + ip + "\"}}";
+	}
+
+	/**
+	 * Creates the json of a service in the namespace default.
+	 * @param name the name of the service
+	 * @param version the resource version of the service
+	 * @return the json of the service
+	 */
+	private static String service(String name, int version) {
+		return "{\"metadata\":{\"name\":\"" + name + "\",\"namespace\":\"default\",\"resourceVersion\":\"" + version + "\"}}";
+	}
+
+	/**
+	 * Creates the json of the endpoints of a service in the namespace default.
+	 * @param name the name of the service
+	 * @param version the resource version of the endpoints
+	 * @param targets the names and ips of the target pods in turns
+	 * @return the json of the endpoints
+	 */
+	private static String endpoints(String name, int version, String... targets) {
+		StringBuilder addresses = new StringBuilder();
+		for (int t = 0; t < targets.length; t += 2) {
+			if (t > 0) {
+				addresses.append(',');
+			}
+			addresses.append("{\"ip\":\"").append(targets[t + 1]).append("\",\"targetRef\":{\"name\":\"").append(targets[t]).append("\"}}");
+		}
+		return "{\"metadata\":{\"name\":\"" + name + "\",\"namespace\":\"default\",\"resourceVersion\":\"" + version + "\"},\"subsets\":[{\"addresses\":[" + addresses + "]}]}";
+	}
+}
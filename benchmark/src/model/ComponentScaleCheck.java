@@ -0,0 +1,141 @@
+package model;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.ejml.simple.SimpleMatrix;
+
+import controller.GraphException;
+import controller.PatternType;
+
+/**
+ * This class checks, that scoring the weakly connected components of a system graph separately reaches the scores of a single iteration over the whole graph.
+ * The whole graph is normalized globally, so components with a lower growth rate decay towards zero, which the stitched scores of the components have to reproduce.
+ * Every pattern is scored on generated topologies with few noise edges, which fall apart into many components, by both ways.
+ * The scores are compared elementwise within the tolerance of the similarity algorithm and the extracted instances are compared as well.
+ * Run with java -cp target/benchmarks.jar model.ComponentScaleCheck [seed...], the exit status is 1 if any score or instance differs.
+ * @author Alexis T. Bernhard
+ *
+ */
+public class ComponentScaleCheck {
+
+	/**
+	 * The seeds of the generated topologies, if no seed is given.
+	 */
+	private static final long[] DEFAULT_SEEDS = {42, 7, 1234};
+
+	/**
+	 * The average numbers of outgoing noise edges of a vertex, which split the generated topologies into many components.
+	 */
+	private static final double[] NOISE_DEGREES = {0, 0.3, 0.6};
+
+	/**
+	 * Scores every pattern on the generated topologies by components and as a whole and compares the scores and the instances.
+	 * @param args the seeds of the generated topologies
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 */
+	public static void main(String[] args) throws GraphException {
+		long[] seeds = DEFAULT_SEEDS;
+		if (args.length > 0) {
+			seeds = new long[args.length];
+			for (int i = 0; i < args.length; i++) {
+				seeds[i] = Long.parseLong(args[i]);
+			}
+		}
+		Pattern[] patterns = {new ApiGateway(), new ScatterGather(), new LeaderElection()};
+		for (Pattern pattern : patterns) {
+			pattern.createPattern();
+		}
+		boolean same = true;
+		for (long seed : seeds) {
+			for (double noiseDegree : NOISE_DEGREES) {
+				TopologyGenerator generator = new TopologyGenerator(seed);
+				generator.setVertices(500);
+				generator.setNoiseDegree(noiseDegree);
+				generator.setGateways(2, 2, 3);
+				generator.setScatterGathers(2, 3);
+				generator.setLeaders(2, 2);
+				Graph graph = generator.generate();
+				for (Pattern pattern : patterns) {
+					same &= compare("topology " + seed + " with noise degree " + noiseDegree, graph, pattern);
+				}
+			}
+		}
+		System.exit(same ? 0 : 1);
+	}
+
+	/**
+	 * Scores a pattern on a graph by components and as a whole and prints the largest difference of a score and the number of differing instances.
+	 * @param name the name of the graph
+	 * @param graph the graph
+	 * @param pattern the pattern
+	 * @return true if every score differs by at most the tolerance and both scores result in the same instances
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 */
+	private static boolean compare(String name, Graph graph, Pattern pattern) throws GraphException {
+		IterationStatistics statistics = new IterationStatistics();
+		SimpleMatrix components = new SimilarityAlgorithm().perform(graph, pattern.getGraph(), statistics);
+		SimpleMatrix whole = scoreWhole(graph, pattern);
+		double difference = 0;
+		for (int r = 0; r < whole.numRows(); r++) {
+			for (int c = 0; c < whole.numCols(); c++) {
+				difference = Math.max(difference, Math.abs(components.get(r, c) - whole.get(r, c)));
+			}
+		}
+		PatternDetector detector = new PatternDetector();
+		Set<String> componentInstances = describe(detector.extractInstances(graph, pattern, components, 0));
+		Set<String> wholeInstances = describe(detector.extractInstances(graph, pattern, whole, 0));
+		Set<String> differing = new HashSet<>(componentInstances);
+		differing.addAll(wholeInstances);
+		Set<String> common = new HashSet<>(componentInstances);
+		common.retainAll(wholeInstances);
+		differing.removeAll(common);
+		boolean same = difference <= SimilarityAlgorithm.DEFAULT_TOLERANCE && differing.isEmpty();
+		System.out.println(name + ", " + pattern.getPatternType() + ": " + statistics.getComponents() + " components, largest difference " + difference + ", "
+				+ wholeInstances.size() + " instances, " + differing.size() + " differing" + (same ? "" : " exceeds the tolerance"));
+		return same;
+	}
+
+	/**
+	 * Scores a pattern on the whole graph by a single iteration, which normalizes all components together, like the similarity algorithm before the split into components.
+	 * @param graph the graph
+	 * @param pattern the pattern
+	 * @return the similarity score matrix with a row for every pattern vertex and a column for every system vertex
+	 */
+	private static SimpleMatrix scoreWhole(Graph graph, Pattern pattern) {
+		SimpleMatrix system = new SimpleMatrix(pattern.getPatternType() == PatternType.LEADER_ELECTION ? graph.getReplicaAdjacencyMatrix() : graph.getAdjacencyMatrix());
+		SimpleMatrix patternMatrix = new SimpleMatrix(pattern.getGraph().getAdjacencyMatrix());
+		SimpleMatrix res = new SimpleMatrix(patternMatrix.numCols(), system.numRows());
+		res.fill(1.0);
+		SimpleMatrix prevRes = new SimpleMatrix(res.numRows(), res.numCols());
+		for (int i = 1; i <= SimilarityAlgorithm.DEFAULT_MAX_ITERATIONS; i++) {
+			SimpleMatrix next = patternMatrix.mult(res).mult(system.transpose()).plus(patternMatrix.transpose().mult(res).mult(system));
+			res = next.divide(SimilarityAlgorithm.norm1(next));
+			if (i % 2 == 0) {
+				if (res.minus(prevRes).elementMaxAbs() <= SimilarityAlgorithm.DEFAULT_TOLERANCE) {
+					break;
+				}
+				prevRes = res;
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Describes the instances by the names and roles of their members.
+	 * @param instances the instances
+	 * @return the descriptions of the instances
+	 */
+	private static Set<String> describe(List<ReadableGraph> instances) {
+		Set<String> res = new HashSet<>();
+		for (ReadableGraph instance : instances) {
+			StringBuilder description = new StringBuilder();
+			for (ReadableVertex vertex : instance.getVertices()) {
+				description.append(vertex.getName()).append(':').append(vertex.getRole()).append(',');
+			}
+			res.add(description.toString());
+		}
+		return res;
+	}
+}
@@ -0,0 +1,525 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.ejml.simple.SimpleMatrix;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import controller.GraphException;
+
+/**
+ * This class measures the similarity scoring, the member extraction and the whole detection of a pattern on generated microservice topologies (see TopologyGenerator).
+ * The incremental detection is measured on a copy of the topology with a few removed edges next to the full detection of the same copy
+ * and over several rounds of removed edges, which compares its agreement with a full detection in the first and the last round.
+ * Run with the gc profiler (-prof gc) to measure the allocation rate as well.
+ * @author Alexis T. Bernhard
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DetectionBenchmark {
+
+	/**
+	 * The seed of the generated graph.
+	 */
+	@Param({"42"})
+	private long seed;
+
+	/**
+	 * The number of vertices of the generated graph.
+	 */
+	@Param({"100", "1000"})
+	private int vertices;
+
+	/**
+	 * The average number of outgoing noise edges of a vertex.
+	 */
+	@Param({"2"})
+	private double noiseDegree;
+
+	/**
+	 * The number of api gateway clusters of the generated graph.
+	 */
+	@Param({"2"})
+	private int gateways;
+
+	/**
+	 * The number of scatter gather clusters of the generated graph.
+	 */
+	@Param({"2"})
+	private int scatterGathers;
+
+	/**
+	 * The number of leader election clusters of the generated graph.
+	 */
+	@Param({"2"})
+	private int leaders;
+
+	/**
+	 * The detected pattern.
+	 */
+	@Param({"API_GATEWAY", "SCATTER_GATHER", "LEADER_ELECTION"})
+	private String patternType;
+
+	/**
+	 * The generator of the graph, which knows the placements of all patterns.
+	 */
+	private TopologyGenerator generator;
+
+	/**
+	 * The generated graph.
+	 */
+	private Graph graph;
+
+	/**
+	 * The detected pattern.
+	 */
+	private Pattern pattern;
+
+	/**
+	 * The similarity scores of the pattern and the graph, which are the input of the member extraction.
+	 */
+	private SimpleMatrix scores;
+
+	/**
+	 * The similarity algorithm to score the graph.
+	 */
+	private SimilarityAlgorithm algorithm;
+
+	/**
+	 * The pattern detector to extract the members and to detect the pattern.
+	 */
+	private PatternDetector detector;
+
+	/**
+	 * Generates the graph and the pattern and scores the graph once for the member extraction.
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 */
+	@Setup(Level.Trial)
+	public void setup() throws GraphException {
+		generator = new TopologyGenerator(seed);
+		generator.setVertices(vertices);
+		generator.setNoiseDegree(noiseDegree);
+		generator.setGateways(gateways, 2, 3);
+		generator.setScatterGathers(scatterGathers, 3);
+		generator.setLeaders(leaders, 2);
+		graph = generator.generate();
+		switch (patternType) {
+		case "SCATTER_GATHER": pattern = new ScatterGather(); break;
+		case "LEADER_ELECTION": pattern = new LeaderElection(); break;
+		default: pattern = new ApiGateway(); break;
+		}
+		pattern.createPattern();
+		algorithm = new SimilarityAlgorithm();
+		detector = new PatternDetector();
+		scores = algorithm.perform(graph, pattern.getGraph());
+	}
+
+	/**
+	 * Measures the similarity scoring of the pattern and the graph.
+	 * @return the similarity scores
+	 */
+	@Benchmark
+	public SimpleMatrix similarity() {
+		return algorithm.perform(graph, pattern.getGraph());
+	}
+
+	/**
+	 * Measures the extraction of all pattern instances out of precomputed similarity scores.
+	 * @return the detected instances
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 */
+	@Benchmark
+	public List<ReadableGraph> extraction() throws GraphException {
+		return detector.extractInstances(graph, pattern, scores, 0);
+	}
+
+	/**
+	 * Measures the whole detection of the pattern in the graph and counts the found and the placed patterns, so the accuracy is reported next to the throughput.
+	 * @param accuracy the counters of the found and the placed patterns
+	 * @return the detected instances
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 */
+	@Benchmark
+	public List<ReadableGraph> detection(Accuracy accuracy) throws GraphException {
+		List<ReadableGraph> instances = detector.detect(graph, pattern, 0);
+		accuracy.found += generator.countFound(instances);
+		for (TopologyGenerator.Placement placement : generator.getPlacements()) {
+			if (placement.getPatternType() == pattern.getPatternType()) {
+				accuracy.placed++;
+			}
+		}
+		return instances;
+	}
+
+	/**
+	 * Measures the full detection of the pattern in the changed copy of the graph, which is the reference of the incremental detection.
+	 * @param change the changed copy of the graph
+	 * @return the detected instances
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 */
+	@Benchmark
+	public List<ReadableGraph> changedDetection(Change change) throws GraphException {
+		return detector.detect(change.graph, pattern, 0);
+	}
+
+	/**
+	 * Measures the incremental detection of the pattern in the changed copy of the graph after a full detection in the graph
+	 * and counts the instances in common with the full detection of the copy, so the agreement is reported next to the throughput.
+	 * @param change the changed copy of the graph
+	 * @param agreement the counters of the common and the reference instances
+	 * @return the detected instances
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 */
+	@Benchmark
+	public List<ReadableGraph> incrementalDetection(Change change, Agreement agreement) throws GraphException {
+		List<ReadableGraph> instances = change.detector.detect(change.graph, change.pattern, 0);
+		for (ReadableGraph instance : instances) {
+			if (change.reference.contains(describe(instance))) {
+				agreement.common++;
+			}
+		}
+		agreement.reference += change.reference.size();
+		return instances;
+	}
+
+	/**
+	 * Measures the incremental detections of the pattern in a series of copies of the graph, which lose a few more edges in every round,
+	 * and counts the instances in common with the full detections of the first and the last copy, so a decaying agreement shows next to the throughput.
+	 * @param rounds the series of changed copies of the graph
+	 * @param drift the counters of the common and the reference instances of the first and the last round
+	 * @return the detected instances of the last round
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 */
+	@Benchmark
+	public List<ReadableGraph> incrementalRounds(Rounds rounds, Drift drift) throws GraphException {
+		List<ReadableGraph> instances = null;
+		for (int r = 0; r < rounds.graphs.length; r++) {
+			instances = rounds.detector.detect(rounds.graphs[r], rounds.pattern, 0);
+			long common = 0;
+			for (ReadableGraph instance : instances) {
+				if (rounds.references.get(r).contains(describe(instance))) {
+					common++;
+				}
+			}
+			if (r == 0) {
+				drift.firstCommon += common;
+				drift.firstReference += rounds.references.get(r).size();
+			}
+			if (r == rounds.graphs.length - 1) {
+				drift.lastCommon += common;
+				drift.lastReference += rounds.references.get(r).size();
+			}
+		}
+		return instances;
+	}
+
+	/**
+	 * Removes the first outgoing edge of random vertices.
+	 * @param graph the graph
+	 * @param changes the number of edges to be removed
+	 * @param random the random source of the vertices
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 */
+	private static void removeEdges(Graph graph, int changes, Random random) throws GraphException {
+		int removed = 0;
+		while (removed < changes && graph.getEdgeCount() > 0) {
+			int vertex = random.nextInt(graph.getVertices().size());
+			if (graph.getOutDegree(vertex) > 0) {
+				graph.removeEdgeByIndex(vertex, graph.getOutNeighbour(vertex, 0), 0);
+				removed++;
+			}
+		}
+	}
+
+	/**
+	 * Describes an instance by the names and roles of its members and its number of edges.
+	 * The members are ordered by their names, because the order of the members follows their scores, which change slightly with every change of the graph.
+	 * @param instance the instance
+	 * @return the description of the instance
+	 */
+	private static String describe(ReadableGraph instance) {
+		Set<String> members = new TreeSet<>();
+		for (ReadableVertex vertex : instance.getVertices()) {
+			members.add(vertex.getName() + ':' + vertex.getRole());
+		}
+		return String.join(",", members) + "," + instance.getEdgeCount();
+	}
+
+	/**
+	 * This class contains a copy of the generated graph with a few removed edges and an incremental pattern detector,
+	 * whose previous detection is a full detection in the generated graph before every measured detection of the copy.
+	 * The previous detection is repeated before every invocation, which is excluded from the measurement, but takes as long as a full detection.
+	 * @author Alexis T. Bernhard
+	 *
+	 */
+	@State(Scope.Thread)
+	public static class Change {
+
+		/**
+		 * The number of removed edges.
+		 */
+		@Param({"5"})
+		private int changes;
+
+		/**
+		 * The generated graph, which is detected before every measured detection.
+		 */
+		private Graph previous;
+
+		/**
+		 * The detected pattern.
+		 */
+		private Pattern pattern;
+
+		/**
+		 * The copy of the generated graph with the removed edges.
+		 */
+		private Graph graph;
+
+		/**
+		 * The incremental pattern detector.
+		 */
+		private PatternDetector detector;
+
+		/**
+		 * The descriptions of the instances of a full detection in the copy.
+		 */
+		private Set<String> reference;
+
+		/**
+		 * Copies the generated graph, removes the first outgoing edge of random vertices and detects the pattern in the copy once as reference.
+		 * @param benchmark the benchmark with the generated graph
+		 * @throws GraphException thrown if an operation can't be performed on a graph
+		 */
+		@Setup(Level.Trial)
+		public void setup(DetectionBenchmark benchmark) throws GraphException {
+			previous = benchmark.graph;
+			pattern = benchmark.pattern;
+			graph = benchmark.generator.generate();
+			removeEdges(graph, changes, new Random(benchmark.seed));
+			reference = new HashSet<>();
+			for (ReadableGraph instance : new PatternDetector().detect(graph, pattern, 0)) {
+				reference.add(describe(instance));
+			}
+			detector = new PatternDetector();
+		}
+
+		/**
+		 * Drops the previous detection and detects the pattern in the generated graph, so the measured detection compares the copy with it.
+		 * @throws GraphException thrown if an operation can't be performed on a graph
+		 */
+		@Setup(Level.Invocation)
+		public void detectPrevious() throws GraphException {
+			detector.setIncremental(false);
+			detector.setIncremental(true);
+			detector.detect(previous, pattern, 0);
+		}
+	}
+
+	/**
+	 * This class contains a series of copies of the generated graph, which lose a few more edges in every round, and an incremental pattern detector,
+	 * whose previous detection is a full detection in the generated graph before every measured series.
+	 * The copies are detected in turn, so the kept instances of the incremental detections add up over the rounds until the next full detection.
+	 * @author Alexis T. Bernhard
+	 *
+	 */
+	@State(Scope.Thread)
+	public static class Rounds {
+
+		/**
+		 * The number of rounds, the last of the default 21 rounds is the tenth incremental detection after the full detection of the eleventh round.
+		 */
+		@Param({"21"})
+		private int rounds;
+
+		/**
+		 * The number of removed edges of every round.
+		 */
+		@Param({"5"})
+		private int roundChanges;
+
+		/**
+		 * The generated graph, which is detected before every measured series.
+		 */
+		private Graph previous;
+
+		/**
+		 * The detected pattern.
+		 */
+		private Pattern pattern;
+
+		/**
+		 * The copy of the generated graph of every round with the removed edges of all rounds up to it.
+		 */
+		private Graph[] graphs;
+
+		/**
+		 * The descriptions of the instances of a full detection in the copy of every round.
+		 */
+		private List<Set<String>> references;
+
+		/**
+		 * The incremental pattern detector.
+		 */
+		private PatternDetector detector;
+
+		/**
+		 * Copies the generated graph for every round, removes the edges of all rounds up to it and detects the pattern in every copy once as reference.
+		 * @param benchmark the benchmark with the generated graph
+		 * @throws GraphException thrown if an operation can't be performed on a graph
+		 */
+		@Setup(Level.Trial)
+		public void setup(DetectionBenchmark benchmark) throws GraphException {
+			previous = benchmark.graph;
+			pattern = benchmark.pattern;
+			graphs = new Graph[rounds];
+			references = new ArrayList<>();
+			for (int r = 0; r < rounds; r++) {
+				// the same random source removes the same edges first, so every copy extends the changes of the previous round
+				graphs[r] = benchmark.generator.generate();
+				removeEdges(graphs[r], (r + 1) * roundChanges, new Random(benchmark.seed));
+				Set<String> reference = new HashSet<>();
+				for (ReadableGraph instance : new PatternDetector().detect(graphs[r], pattern, 0)) {
+					reference.add(describe(instance));
+				}
+				references.add(reference);
+			}
+			detector = new PatternDetector();
+		}
+
+		/**
+		 * Drops the previous detection and detects the pattern in the generated graph, so the measured series starts from a full detection.
+		 * @throws GraphException thrown if an operation can't be performed on a graph
+		 */
+		@Setup(Level.Invocation)
+		public void detectPrevious() throws GraphException {
+			detector.setIncremental(false);
+			detector.setIncremental(true);
+			detector.detect(previous, pattern, 0);
+		}
+	}
+
+	/**
+	 * This class counts the instances of the incremental detections in the first and the last round of the series of an iteration,
+	 * which are also found by the full detection, and the instances of the full detection. The agreement of a round is common divided by reference.
+	 * @author Alexis T. Bernhard
+	 *
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Drift {
+
+		/**
+		 * The number of instances of the incremental detections of the first round, which are also found by the full detection.
+		 */
+		public long firstCommon;
+
+		/**
+		 * The number of instances of the full detections of the first round.
+		 */
+		public long firstReference;
+
+		/**
+		 * The number of instances of the incremental detections of the last round, which are also found by the full detection.
+		 */
+		public long lastCommon;
+
+		/**
+		 * The number of instances of the full detections of the last round.
+		 */
+		public long lastReference;
+
+		/**
+		 * Resets the counters before every iteration.
+		 */
+		@Setup(Level.Iteration)
+		public void reset() {
+			firstCommon = 0;
+			firstReference = 0;
+			lastCommon = 0;
+			lastReference = 0;
+		}
+	}
+
+	/**
+	 * This class counts the instances of the incremental detections of an iteration, which are also found by the full detection,
+	 * and the instances of the full detection, the agreement is common divided by reference.
+	 * @author Alexis T. Bernhard
+	 *
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Agreement {
+
+		/**
+		 * The number of instances of the incremental detections, which are also found by the full detection.
+		 */
+		public long common;
+
+		/**
+		 * The number of instances of the full detection for every incremental detection.
+		 */
+		public long reference;
+
+		/**
+		 * Resets the counters before every iteration.
+		 */
+		@Setup(Level.Iteration)
+		public void reset() {
+			common = 0;
+			reference = 0;
+		}
+	}
+
+	/**
+	 * This class counts the found and the placed patterns of all detections of an iteration, the recall is found divided by placed.
+	 * @author Alexis T. Bernhard
+	 *
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Accuracy {
+
+		/**
+		 * The number of placed patterns, which are found by the detections.
+		 */
+		public long found;
+
+		/**
+		 * The number of placed patterns of the detected pattern type.
+		 */
+		public long placed;
+
+		/**
+		 * Resets the counters before every iteration.
+		 */
+		@Setup(Level.Iteration)
+		public void reset() {
+			found = 0;
+			placed = 0;
+		}
+	}
+}
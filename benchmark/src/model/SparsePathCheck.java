@@ -0,0 +1,95 @@
+package model;
+
+import org.ejml.simple.SimpleMatrix;
+
+import controller.GraphException;
+
+/**
+ * This class checks, that the sparse and the dense calculation of the similarity scores reach the same scores.
+ * Every pattern is scored on the test graph and on seeded generated topologies once with the sparse and once with the dense calculation forced
+ * and the scores are compared elementwise within the tolerance of the similarity algorithm.
+ * Run with java -cp target/benchmarks.jar model.SparsePathCheck [seed...], the exit status is 1 if any score differs.
+ * @author Alexis T. Bernhard
+ *
+ */
+public class SparsePathCheck {
+
+	/**
+	 * The edge density, which forces the sparse calculation of every component.
+	 */
+	private static final double SPARSE = 2.0;
+
+	/**
+	 * The edge density, which forces the dense calculation of every component.
+	 */
+	private static final double DENSE = 0.0;
+
+	/**
+	 * The seeds of the generated topologies, if no seed is given.
+	 */
+	private static final long[] DEFAULT_SEEDS = {42, 7, 1234};
+
+	/**
+	 * Scores every pattern on the test graph and the generated topologies with both calculations and compares the scores.
+	 * @param args the seeds of the generated topologies
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 */
+	public static void main(String[] args) throws GraphException {
+		long[] seeds = DEFAULT_SEEDS;
+		if (args.length > 0) {
+			seeds = new long[args.length];
+			for (int i = 0; i < args.length; i++) {
+				seeds[i] = Long.parseLong(args[i]);
+			}
+		}
+		Pattern[] patterns = {new ApiGateway(), new ScatterGather(), new LeaderElection()};
+		for (Pattern pattern : patterns) {
+			pattern.createPattern();
+		}
+		boolean same = true;
+		for (Pattern pattern : patterns) {
+			same &= compare("test graph", new TestGraph().getGraph(), pattern);
+		}
+		for (long seed : seeds) {
+			TopologyGenerator generator = new TopologyGenerator(seed);
+			generator.setVertices(1000);
+			generator.setNoiseDegree(2);
+			generator.setGateways(2, 2, 3);
+			generator.setScatterGathers(2, 3);
+			generator.setLeaders(2, 2);
+			Graph graph = generator.generate();
+			for (Pattern pattern : patterns) {
+				same &= compare("topology " + seed, graph, pattern);
+			}
+		}
+		System.exit(same ? 0 : 1);
+	}
+
+	/**
+	 * Scores a pattern on a graph with both calculations and prints the largest difference of a score.
+	 * @param name the name of the graph
+	 * @param graph the graph
+	 * @param pattern the pattern
+	 * @return true if every score differs by at most the tolerance
+	 */
+	private static boolean compare(String name, Graph graph, Pattern pattern) {
+		SimilarityAlgorithm algorithm = new SimilarityAlgorithm();
+		algorithm.setSparseDensity(SPARSE);
+		SimpleMatrix sparse = algorithm.perform(graph, pattern.getGraph());
+		algorithm.setSparseDensity(DENSE);
+		SimpleMatrix dense = algorithm.perform(graph, pattern.getGraph());
+		if (sparse.numRows() != dense.numRows() || sparse.numCols() != dense.numCols()) {
+			System.out.println(name + ", " + pattern.getPatternType() + ": the score matrices differ in their size");
+			return false;
+		}
+		double difference = 0;
+		for (int r = 0; r < sparse.numRows(); r++) {
+			for (int c = 0; c < sparse.numCols(); c++) {
+				difference = Math.max(difference, Math.abs(sparse.get(r, c) - dense.get(r, c)));
+			}
+		}
+		boolean same = difference <= SimilarityAlgorithm.DEFAULT_TOLERANCE;
+		System.out.println(name + ", " + pattern.getPatternType() + ": largest difference " + difference + (same ? "" : " exceeds the tolerance"));
+		return same;
+	}
+}
@@ -0,0 +1,141 @@
+package model;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.ejml.simple.SimpleMatrix;
+
+import controller.GraphException;
+
+/**
+ * This class checks, that a warm start from the scores of a previous detection reaches the scores of a start from ones on a changed graph.
+ * Every pattern is scored on seeded generated topologies, a number of edges is removed and the changed graph is scored once from ones
+ * and once from the previous scores. The scores are compared elementwise within the tolerance of the similarity algorithm and the extracted instances are compared as well.
+ * Run with java -cp target/benchmarks.jar model.WarmStartCheck [seed...], the exit status is 1 if any score or instance differs.
+ * @author Alexis T. Bernhard
+ *
+ */
+public class WarmStartCheck {
+
+	/**
+	 * The seeds of the generated topologies, if no seed is given.
+	 */
+	private static final long[] DEFAULT_SEEDS = {42, 7, 1234};
+
+	/**
+	 * The numbers of removed edges between the previous and the checked detection.
+	 */
+	private static final int[] CHANGES = {0, 1, 2, 5, 50, 500};
+
+	/**
+	 * Scores every pattern on the generated topologies before and after removing edges and compares the warm with the cold start.
+	 * @param args the seeds of the generated topologies
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 */
+	public static void main(String[] args) throws GraphException {
+		long[] seeds = DEFAULT_SEEDS;
+		if (args.length > 0) {
+			seeds = new long[args.length];
+			for (int i = 0; i < args.length; i++) {
+				seeds[i] = Long.parseLong(args[i]);
+			}
+		}
+		Pattern[] patterns = {new ApiGateway(), new ScatterGather(), new LeaderElection()};
+		for (Pattern pattern : patterns) {
+			pattern.createPattern();
+		}
+		boolean same = true;
+		for (long seed : seeds) {
+			for (int changes : CHANGES) {
+				TopologyGenerator generator = new TopologyGenerator(seed);
+				generator.setVertices(1000);
+				generator.setNoiseDegree(2);
+				generator.setGateways(2, 2, 3);
+				generator.setScatterGathers(2, 3);
+				generator.setLeaders(2, 2);
+				Graph graph = generator.generate();
+				SimpleMatrix[] previous = new SimpleMatrix[patterns.length];
+				for (int p = 0; p < patterns.length; p++) {
+					previous[p] = new SimilarityAlgorithm().perform(graph, patterns[p].getGraph());
+				}
+				removeEdges(graph, changes, new Random(seed));
+				for (int p = 0; p < patterns.length; p++) {
+					same &= compare("topology " + seed + " with " + changes + " removed edges", graph, patterns[p], previous[p]);
+				}
+			}
+		}
+		System.exit(same ? 0 : 1);
+	}
+
+	/**
+	 * Removes the first outgoing edge of random vertices.
+	 * @param graph the graph
+	 * @param changes the number of edges to be removed
+	 * @param random the random source of the vertices
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 */
+	private static void removeEdges(Graph graph, int changes, Random random) throws GraphException {
+		int removed = 0;
+		while (removed < changes && graph.getEdgeCount() > 0) {
+			int vertex = random.nextInt(graph.getVertices().size());
+			if (graph.getOutDegree(vertex) > 0) {
+				graph.removeEdgeByIndex(vertex, graph.getOutNeighbour(vertex, 0), 0);
+				removed++;
+			}
+		}
+	}
+
+	/**
+	 * Scores a pattern on a graph from ones and from the previous scores and prints the largest difference of a score and the number of differing instances.
+	 * @param name the name of the graph
+	 * @param graph the graph
+	 * @param pattern the pattern
+	 * @param previous the scores of the pattern before the graph was changed
+	 * @return true if every score differs by at most the tolerance and both scores result in the same instances
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 */
+	private static boolean compare(String name, Graph graph, Pattern pattern, SimpleMatrix previous) throws GraphException {
+		IterationStatistics coldStatistics = new IterationStatistics();
+		IterationStatistics warmStatistics = new IterationStatistics();
+		SimpleMatrix cold = new SimilarityAlgorithm().perform(graph, pattern.getGraph(), coldStatistics, null);
+		SimpleMatrix warm = new SimilarityAlgorithm().perform(graph, pattern.getGraph(), warmStatistics, previous.getDDRM().copy());
+		double difference = 0;
+		for (int r = 0; r < cold.numRows(); r++) {
+			for (int c = 0; c < cold.numCols(); c++) {
+				difference = Math.max(difference, Math.abs(warm.get(r, c) - cold.get(r, c)));
+			}
+		}
+		PatternDetector detector = new PatternDetector();
+		Set<String> coldInstances = describe(detector.extractInstances(graph, pattern, cold, 0));
+		Set<String> warmInstances = describe(detector.extractInstances(graph, pattern, warm, 0));
+		Set<String> differing = new HashSet<>(coldInstances);
+		differing.addAll(warmInstances);
+		Set<String> common = new HashSet<>(coldInstances);
+		common.retainAll(warmInstances);
+		differing.removeAll(common);
+		boolean same = difference <= SimilarityAlgorithm.DEFAULT_TOLERANCE && differing.isEmpty();
+		System.out.println(name + ", " + pattern.getPatternType() + ": " + (warmStatistics.isWarmStart() ? "warm start kept" : "calculated from ones") + " after "
+				+ warmStatistics.getIterations() + " instead of " + coldStatistics.getIterations() + " iterations, largest difference " + difference + ", "
+				+ coldInstances.size() + " instances, " + differing.size() + " differing" + (same ? "" : " exceeds the tolerance"));
+		return same;
+	}
+
+	/**
+	 * Describes the instances by the names and roles of their members.
+	 * @param instances the instances
+	 * @return the descriptions of the instances
+	 */
+	private static Set<String> describe(List<ReadableGraph> instances) {
+		Set<String> res = new HashSet<>();
+		for (ReadableGraph instance : instances) {
+			StringBuilder description = new StringBuilder();
+			for (ReadableVertex vertex : instance.getVertices()) {
+				description.append(vertex.getName()).append(':').append(vertex.getRole()).append(',');
+			}
+			res.add(description.toString());
+		}
+		return res;
+	}
+}
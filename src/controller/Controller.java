@@ -89,6 +89,7 @@ public class Controller extends Application {
 		detector.setScene(authscene.getScene());
 
 		detector.setOnCloseRequest(event -> {
+			model.close();
 			Platform.exit();
 			System.exit(0);
 		});
@@ -161,8 +162,6 @@ public class Controller extends Application {
 		} catch (InterruptedException e) {
 			Thread.currentThread().interrupt();
 			exHandler.handleError("Interrupted Exception: The process to wait for output results was manually interrupted.", view);
-		} catch (CloneNotSupportedException e) {
-			exHandler.handleError("CloneNotSupportedException: The operation of cloning a vertex is not supported.", view);
 		}
 	}
 
@@ -0,0 +1,421 @@
+package controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.kubernetes.client.openapi.ApiException;
+import model.ReadableGraph;
+
+/**
+ * Controls the application as resident service, which detects the patterns periodically and serves the latest instances over http.
+ * The runs are scheduled with a fixed delay on a single thread, so a run never overlaps with the previous one.
+ * The instances of the latest successful run are rendered once and kept until the next run succeeds, so they are served without delay while a new run is in progress.
+ * The service provides the endpoints /results (json or csv with ?format=csv) and /status (json).
+ * @author Alexis T. Bernhard
+ *
+ */
+public class DetectionService extends HeadlessController {
+
+	/**
+	 * The logger of the service.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(DetectionService.class);
+
+	/**
+	 * The default port of the http endpoint, which is exposed by the docker image.
+	 */
+	private static final int DEFAULT_PORT = 5462;
+
+	/**
+	 * The default delay between the end of a run and the start of the next run in seconds.
+	 */
+	private static final long DEFAULT_INTERVAL = 60;
+
+	/**
+	 * The time to wait for an interrupted run to end, when the service is stopped, in seconds.
+	 */
+	private static final long STOP_TIMEOUT = 10;
+
+	/**
+	 * The description of the arguments of the service.
+	 */
+	private static final String USAGE = String.join(System.lineSeparator(),
+			"Usage: java -cp detector-0.0.1-SNAPSHOT.jar controller.DetectionService [options]",
+			"  --interval <seconds>       the delay between the end of a run and the start of the next run, the default is " + DEFAULT_INTERVAL,
+			"  --port <port>              the port of the http endpoint, the default is " + DEFAULT_PORT,
+			"  --bind <address>           the address of the http endpoint, the default is every address",
+			"  --incremental              detects the patterns of a run only around the changes since the previous run",
+			OPTIONS);
+
+	/**
+	 * The delay between the end of a run and the start of the next run in seconds.
+	 */
+	private long interval = DEFAULT_INTERVAL;
+
+	/**
+	 * The port of the http endpoint.
+	 */
+	private int port = DEFAULT_PORT;
+
+	/**
+	 * The address of the http endpoint or null for every address.
+	 */
+	private String bind;
+
+	/**
+	 * The single thread, which runs the detections.
+	 */
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * The http server of the endpoints.
+	 */
+	private HttpServer server;
+
+	/**
+	 * This boolean indicates if the next run installs the infrastructure and builds the whole graph (first run) or only applies the changes of the cluster.
+	 */
+	private boolean install = true;
+
+	/**
+	 * The number of finished runs.
+	 */
+	private volatile long runs;
+
+	/**
+	 * This boolean indicates if a run is in progress.
+	 */
+	private volatile boolean running;
+
+	/**
+	 * The error of the latest run or null if it succeeded.
+	 */
+	private volatile String error;
+
+	/**
+	 * The instances of the latest successful run or null before the first successful run.
+	 */
+	private volatile Results results;
+
+	/**
+	 * This class contains the rendered instances of a successful run, which are immutable and shared by all requests.
+	 * @author Alexis T. Bernhard
+	 *
+	 */
+	private static class Results {
+
+		/**
+		 * The number of the run.
+		 */
+		private long run;
+
+		/**
+		 * The start of the run.
+		 */
+		private Instant start;
+
+		/**
+		 * The end of the run.
+		 */
+		private Instant end;
+
+		/**
+		 * The number of detected instances.
+		 */
+		private int instances;
+
+		/**
+		 * The instances as json.
+		 */
+		private byte[] json;
+
+		/**
+		 * The instances as csv.
+		 */
+		private byte[] csv;
+
+		/**
+		 * Renders the instances of a run.
+		 * @param run the number of the run
+		 * @param start the start of the run
+		 * @param end the end of the run
+		 * @param graphs the detected instances
+		 * @throws IOException thrown if the instances can't be rendered
+		 */
+		Results(long run, Instant start, Instant end, List<ReadableGraph> graphs) throws IOException {
+			this.run = run;
+			this.start = start;
+			this.end = end;
+			instances = graphs.size();
+			json = render(graphs, OutputFormat.JSON);
+			csv = render(graphs, OutputFormat.CSV);
+		}
+
+		/**
+		 * Renders the instances in a format.
+		 * @param graphs the detected instances
+		 * @param format the format
+		 * @return the rendered instances encoded in utf-8
+		 * @throws IOException thrown if the instances can't be rendered
+		 */
+		private static byte[] render(List<ReadableGraph> graphs, OutputFormat format) throws IOException {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			new ResultWriter(format).write(graphs, new OutputStreamWriter(bytes, StandardCharsets.UTF_8));
+			return bytes.toByteArray();
+		}
+	}
+
+	@Override
+	int parseArgument(String[] args, int index) {
+		int i = index;
+		switch (args[i]) {
+		case "--interval":
+			interval = parseNumber(value(args, ++i, "--interval"), "--interval", 1, Integer.MAX_VALUE);
+			break;
+		case "--port":
+			port = (int) parseNumber(value(args, ++i, "--port"), "--port", 0, 65535);
+			break;
+		case "--bind":
+			bind = value(args, ++i, "--bind");
+			break;
+		case "--incremental":
+			this.getModel().setIncrementalDetection(true);
+			break;
+		default:
+			i = super.parseArgument(args, i);
+		}
+		return i;
+	}
+
+	/**
+	 * Parses the number of an argument.
+	 * @param value the value of the argument
+	 * @param argument the argument
+	 * @param min the smallest valid number
+	 * @param max the largest valid number
+	 * @return the number
+	 * @throws IllegalArgumentException thrown if the value is no number in the valid range
+	 */
+	private static long parseNumber(String value, String argument, long min, long max) {
+		try {
+			long number = Long.parseLong(value);
+			if (number >= min && number <= max) {
+				return number;
+			}
+		} catch (NumberFormatException e) {
+			// handled below
+		}
+		throw new IllegalArgumentException("The argument " + argument + " requires a number between " + min + " and " + max + ": " + value);
+	}
+
+	/**
+	 * Starts the http endpoints and schedules the runs, the first run starts immediately.
+	 * @throws IOException thrown if the http server can't be bound to its address
+	 */
+	void start() throws IOException {
+		InetSocketAddress address = bind == null ? new InetSocketAddress(port) : new InetSocketAddress(bind, port);
+		server = HttpServer.create(address, 0);
+		server.createContext("/results", this::handleResults);
+		server.createContext("/status", this::handleStatus);
+		server.start();
+		LOGGER.info("Serving the detected patterns on {}", server.getAddress());
+
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "detection"));
+		scheduler.scheduleWithFixedDelay(this::detect, 0, interval, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Stops the runs and the http endpoints and closes the model, a run in progress is interrupted.
+	 */
+	void stop() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			try {
+				// the model is closed after the interrupted run, so the run does not restart the cluster watcher
+				scheduler.awaitTermination(STOP_TIMEOUT, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (server != null) {
+			server.stop(0);
+		}
+		this.getModel().close();
+	}
+
+	/**
+	 * Runs a detection and replaces the latest instances, if it succeeds.
+	 * A failed run keeps the previous instances and is retried with the next run, so no exception may leave this method and cancel the schedule.
+	 */
+	private void detect() {
+		running = true;
+		Instant start = Instant.now();
+		try {
+			if (install) {
+				this.authenticate();
+			}
+			List<ReadableGraph> graphs = this.getModel().generateGraphs(install);
+			install = false;
+			results = new Results(runs + 1, start, Instant.now(), graphs);
+			error = null;
+			if (this.getOutput() != null) {
+				this.write(graphs);
+			}
+			LOGGER.info("Run {} detected {} pattern instances in {} ms", runs + 1, graphs.size(), results.end.toEpochMilli() - start.toEpochMilli());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			error = "Interrupted Exception: The run was interrupted.";
+		} catch (IOException | ApiException | GraphException | RuntimeException e) {
+			error = e.toString();
+			LOGGER.warn("Run {} failed, the instances of run {} are served: {}", runs + 1, results == null ? 0 : results.run, error);
+		} finally {
+			runs++;
+			running = false;
+		}
+	}
+
+	/**
+	 * Handles a request of the latest instances as json or, with the query format=csv, as csv.
+	 * Before the first successful run the endpoint responds with 503 (service unavailable).
+	 * @param exchange the http request and response
+	 * @throws IOException thrown if the response can't be sent
+	 */
+	private void handleResults(HttpExchange exchange) throws IOException {
+		if (!this.isReadRequest(exchange)) {
+			return;
+		}
+		Results results = this.results;
+		if (results == null) {
+			exchange.getResponseHeaders().set("Retry-After", Long.toString(interval));
+			this.send(exchange, 503, "text/plain; charset=utf-8", "No detection finished yet.\n".getBytes(StandardCharsets.UTF_8));
+			return;
+		}
+		String query = exchange.getRequestURI().getQuery();
+		OutputFormat format = this.getFormat();
+		if (query != null) {
+			for (String parameter : query.split("&")) {
+				if (parameter.startsWith("format=")) {
+					try {
+						format = parseEnum(OutputFormat.class, parameter.substring("format=".length()));
+					} catch (IllegalArgumentException e) {
+						this.send(exchange, 400, "text/plain; charset=utf-8", (e.getMessage() + "\n").getBytes(StandardCharsets.UTF_8));
+						return;
+					}
+				}
+			}
+		}
+		exchange.getResponseHeaders().set("X-Detection-Run", Long.toString(results.run));
+		if (format == OutputFormat.CSV) {
+			this.send(exchange, 200, "text/csv; charset=utf-8", results.csv);
+		} else {
+			this.send(exchange, 200, "application/json; charset=utf-8", results.json);
+		}
+	}
+
+	/**
+	 * Handles a request of the status of the service as json: the number of runs, if a run is in progress,
+	 * the latest successful run with its start, end and number of instances and the error of the latest run.
+	 * @param exchange the http request and response
+	 * @throws IOException thrown if the response can't be sent
+	 */
+	private void handleStatus(HttpExchange exchange) throws IOException {
+		if (!this.isReadRequest(exchange)) {
+			return;
+		}
+		Results results = this.results;
+		JsonObject status = new JsonObject();
+		status.addProperty("runs", runs);
+		status.addProperty("running", running);
+		status.addProperty("interval", interval);
+		if (results != null) {
+			status.addProperty("run", results.run);
+			status.addProperty("start", results.start.toString());
+			status.addProperty("end", results.end.toString());
+			status.addProperty("instances", results.instances);
+		}
+		if (error != null) {
+			status.addProperty("error", error);
+		}
+		this.send(exchange, 200, "application/json; charset=utf-8", (status.toString() + "\n").getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Checks if a request only reads, other methods are answered with 405 (method not allowed).
+	 * @param exchange the http request and response
+	 * @return true if the request is a get or head request
+	 * @throws IOException thrown if the response can't be sent
+	 */
+	private boolean isReadRequest(HttpExchange exchange) throws IOException {
+		String method = exchange.getRequestMethod();
+		if (method.equals("GET") || method.equals("HEAD")) {
+			return true;
+		}
+		exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+		this.send(exchange, 405, "text/plain; charset=utf-8", "Method not allowed.\n".getBytes(StandardCharsets.UTF_8));
+		return false;
+	}
+
+	/**
+	 * Sends a response and closes the exchange, the body of a response to a head request is omitted.
+	 * @param exchange the http request and response
+	 * @param status the http status code
+	 * @param contentType the content type of the body
+	 * @param body the body
+	 * @throws IOException thrown if the response can't be sent
+	 */
+	private void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		boolean head = exchange.getRequestMethod().equals("HEAD");
+		exchange.sendResponseHeaders(status, head ? -1 : body.length);
+		if (!head) {
+			try (OutputStream stream = exchange.getResponseBody()) {
+				stream.write(body);
+			}
+		}
+		exchange.close();
+	}
+
+	/**
+	 * Starts the service, which runs until the process is stopped.
+	 * @param args the arguments of the service (see --help)
+	 */
+	public static void main(String[] args) {
+		if (Arrays.asList(args).contains("--help")) {
+			System.out.println(USAGE);
+			return;
+		}
+		DetectionService service = new DetectionService();
+		try {
+			service.parseArguments(args);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(EXIT_USAGE);
+		}
+		try {
+			service.start();
+		} catch (IOException e) {
+			System.err.println("Input/ Output Exception: The http endpoint can't be started: " + e.getMessage());
+			service.stop();
+			System.exit(EXIT_FAILURE);
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread(service::stop));
+	}
+}
@@ -0,0 +1,270 @@
+package controller;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import io.kubernetes.client.openapi.ApiException;
+import model.Model;
+import model.ReadableGraph;
+
+/**
+ * Controls a single headless run of the application, which authenticates to the cluster, detects the patterns and writes the instances as json or csv.
+ * The headless run does not use any javafx class, so it starts without initializing the javafx toolkit and runs without a display (e.g. in a ci pipeline or a cron job).
+ * @author Alexis T. Bernhard
+ *
+ */
+public class HeadlessController {
+
+	/**
+	 * The exit status of a successful run.
+	 */
+	static final int EXIT_SUCCESS = 0;
+
+	/**
+	 * The exit status of a failed authentication, detection or write.
+	 */
+	static final int EXIT_FAILURE = 1;
+
+	/**
+	 * The exit status of invalid arguments.
+	 */
+	static final int EXIT_USAGE = 2;
+
+	/**
+	 * The description of the options of a headless run.
+	 */
+	static final String OPTIONS = String.join(System.lineSeparator(),
+			"  --auth <method> <data...>  authenticates to the cluster, the method is config <file>, url <url>, token <url> <token>",
+			"                             or userpassword <url> <user> <password> (not required in the mock mode)",
+			"  --verify-ssl               verifies the ssl certificate of the cluster (url and userpassword)",
+			"  --format <json|csv>        the format of the detected instances, the default is json",
+			"  --output <file>            the file to write the detected instances to, the default is the standard output",
+			"  --scores <directory>       the directory to write the similarity scores of every pattern to",
+			"  --help                     prints this description");
+
+	/**
+	 * The description of the arguments of a headless run.
+	 */
+	private static final String USAGE = "Usage: java -cp detector-0.0.1-SNAPSHOT.jar controller.HeadlessController [options]" + System.lineSeparator() + OPTIONS;
+
+	/**
+	 * The single facade model class to perform the main operations (see mvc pattern).
+	 */
+	private Model model;
+
+	/**
+	 * The method to authenticate to the cluster or null to skip the authentication.
+	 */
+	private InputType authMethod;
+
+	/**
+	 * The data to authenticate to the cluster.
+	 */
+	private String[] authData;
+
+	/**
+	 * This boolean indicates if the ssl certificate of the cluster is verified by the url based authentication methods.
+	 */
+	private boolean verifySsl;
+
+	/**
+	 * The format of the detected instances.
+	 */
+	private OutputFormat format = OutputFormat.JSON;
+
+	/**
+	 * The file to write the detected instances to or null for the standard output.
+	 */
+	private String output;
+
+	/**
+	 * Initializes the headless controller and inits the model.
+	 */
+	public HeadlessController() {
+		model = new Model();
+	}
+
+	/**
+	 * Parses the arguments of a headless run.
+	 * @param args the arguments
+	 * @throws IllegalArgumentException thrown if an argument is unknown or misses its value
+	 */
+	void parseArguments(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			i = this.parseArgument(args, i);
+		}
+		if (authMethod == InputType.URL || authMethod == InputType.USERPASSWORD) {
+			// the url based methods take the ssl verification as last authentication data
+			authData = Arrays.copyOf(authData, authData.length + 1);
+			authData[authData.length - 1] = Boolean.toString(verifySsl);
+		}
+	}
+
+	/**
+	 * Parses a single argument and its values.
+	 * @param args the arguments
+	 * @param index the index of the argument
+	 * @return the index of the last value of the argument
+	 * @throws IllegalArgumentException thrown if the argument is unknown or misses its value
+	 */
+	int parseArgument(String[] args, int index) {
+		int i = index;
+		switch (args[i]) {
+		case "--auth":
+			authMethod = parseEnum(InputType.class, value(args, ++i, "--auth"));
+			authData = new String[authMethod.getAuthData().length];
+			for (int d = 0; d < authData.length; d++) {
+				authData[d] = value(args, ++i, "--auth " + authMethod);
+			}
+			break;
+		case "--verify-ssl":
+			verifySsl = true;
+			break;
+		case "--format":
+			format = parseEnum(OutputFormat.class, value(args, ++i, "--format"));
+			break;
+		case "--output":
+			output = value(args, ++i, "--output");
+			break;
+		case "--scores":
+			model.setScoreDumpDirectory(value(args, ++i, "--scores"));
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown argument: " + args[i]);
+		}
+		return i;
+	}
+
+	/**
+	 * Gets the value of an argument.
+	 * @param args the arguments
+	 * @param index the index of the value
+	 * @param argument the argument, which requires the value
+	 * @return the value
+	 * @throws IllegalArgumentException thrown if the value is missing
+	 */
+	static String value(String[] args, int index, String argument) {
+		if (index >= args.length || args[index].startsWith("--")) {
+			throw new IllegalArgumentException("Missing value of the argument " + argument);
+		}
+		return args[index];
+	}
+
+	/**
+	 * Parses the lower case name of an enumeration constant.
+	 * @param type the type of the enumeration
+	 * @param name the name of the constant in any case
+	 * @param <E> the type of the enumeration
+	 * @return the constant
+	 * @throws IllegalArgumentException thrown if no constant has the name
+	 */
+	static <E extends Enum<E>> E parseEnum(Class<E> type, String name) {
+		for (E constant : type.getEnumConstants()) {
+			if (constant.name().equalsIgnoreCase(name)) {
+				return constant;
+			}
+		}
+		throw new IllegalArgumentException("Unknown " + type.getSimpleName() + ": " + name);
+	}
+
+	/**
+	 * Gets the single facade model class to perform the main operations.
+	 * @return the model
+	 */
+	Model getModel() {
+		return model;
+	}
+
+	/**
+	 * Gets the format of the detected instances.
+	 * @return the format
+	 */
+	OutputFormat getFormat() {
+		return format;
+	}
+
+	/**
+	 * Gets the file to write the detected instances to.
+	 * @return the path of the file or null for the standard output
+	 */
+	String getOutput() {
+		return output;
+	}
+
+	/**
+	 * Authenticates to the cluster, if an authentication method is given.
+	 * @throws IOException thrown if no authentication method and data is inserted.
+	 * @throws ApiException thrown if the list call to the kubernetes client fails.
+	 */
+	void authenticate() throws IOException, ApiException {
+		if (authMethod != null) {
+			model.authenticate(authMethod, authData);
+		}
+	}
+
+	/**
+	 * Writes the detected instances to the output file or the standard output.
+	 * @param graphs the detected instances
+	 * @throws IOException thrown if the instances can't be written
+	 */
+	void write(List<ReadableGraph> graphs) throws IOException {
+		ResultWriter resultWriter = new ResultWriter(format);
+		if (output == null) {
+			resultWriter.write(graphs, new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+		} else {
+			try (Writer writer = Files.newBufferedWriter(Paths.get(output))) {
+				resultWriter.write(graphs, writer);
+			}
+		}
+	}
+
+	/**
+	 * Authenticates to the cluster, detects all patterns and writes the instances.
+	 * @return the exit status of the run
+	 */
+	int run() {
+		try {
+			this.authenticate();
+			this.write(model.generateGraphs(true));
+			return EXIT_SUCCESS;
+		} catch (IOException e) {
+			System.err.println("Input/ Output Exception: " + e.getMessage());
+		} catch (ApiException e) {
+			System.err.println("Api Exception: The Kubernetes API is not available, please check your cluster connection. " + e.getMessage());
+		} catch (GraphException e) {
+			System.err.println(e.toString());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			System.err.println("Interrupted Exception: The process to wait for output results was manually interrupted.");
+		} finally {
+			model.close();
+		}
+		return EXIT_FAILURE;
+	}
+
+	/**
+	 * Starts a headless run and exits with its status: 0 on success, 1 if the run failed and 2 for invalid arguments.
+	 * @param args the arguments of the run (see --help)
+	 */
+	public static void main(String[] args) {
+		if (Arrays.asList(args).contains("--help")) {
+			System.out.println(USAGE);
+			System.exit(EXIT_SUCCESS);
+		}
+		HeadlessController controller = new HeadlessController();
+		try {
+			controller.parseArguments(args);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(EXIT_USAGE);
+		}
+		System.exit(controller.run());
+	}
+}
@@ -0,0 +1,24 @@
+package controller;
+
+/**
+ * This class is an enumeration of the formats to write the detected pattern instances of a headless run.
+ * @author Alexis T. Bernhard
+ *
+ */
+public enum OutputFormat {
+
+	/**
+	 * Writes an array with an object for every instance, which contains its pattern, members and edges.
+	 */
+	JSON,
+
+	/**
+	 * Writes a row for every member of an instance with the number of the instance, the pattern, the member and the names of its outgoing neighbours.
+	 */
+	CSV;
+
+	@Override
+	public String toString() {
+	    return super.toString().toLowerCase();
+	}
+}
@@ -0,0 +1,127 @@
+package controller;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import model.ReadableGraph;
+import model.ReadableVertex;
+
+/**
+ * This class writes the detected pattern instances of a headless run as json or csv.
+ * @author Alexis T. Bernhard
+ *
+ */
+class ResultWriter {
+
+	/**
+	 * The format of the written instances.
+	 */
+	private OutputFormat format;
+
+	/**
+	 * Initializes the writer of the detected pattern instances.
+	 * @param format the format of the written instances
+	 */
+	ResultWriter(OutputFormat format) {
+		this.format = format;
+	}
+
+	/**
+	 * Writes the detected pattern instances.
+	 * @param graphs the detected pattern instances
+	 * @param writer the writer to write the instances to, which is not closed
+	 * @throws IOException thrown if the instances can't be written
+	 */
+	void write(List<ReadableGraph> graphs, Writer writer) throws IOException {
+		if (format == OutputFormat.CSV) {
+			this.writeCsv(graphs, writer);
+		} else {
+			this.writeJson(graphs, writer);
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Writes the detected pattern instances as json array.
+	 * Every instance is an object with its pattern, its members (name, index in the cluster graph and role) and its edges between the positions of the members.
+	 * @param graphs the detected pattern instances
+	 * @param writer the writer to write the instances to
+	 * @throws IOException thrown if the instances can't be written
+	 */
+	private void writeJson(List<ReadableGraph> graphs, Writer writer) throws IOException {
+		JsonArray instances = new JsonArray();
+		for (ReadableGraph graph : graphs) {
+			JsonObject instance = new JsonObject();
+			instance.addProperty("pattern", graph.getPattern().toString().toLowerCase());
+			JsonArray members = new JsonArray();
+			JsonArray edges = new JsonArray();
+			for (int i = 0; i < graph.getVertices().size(); i++) {
+				ReadableVertex vertex = graph.getVertices().get(i);
+				JsonObject member = new JsonObject();
+				member.addProperty("name", vertex.getName());
+				member.addProperty("index", vertex.getIndex());
+				member.addProperty("role", vertex.getRole());
+				members.add(member);
+				for (int k = 0; k < graph.getOutDegree(i); k++) {
+					JsonArray edge = new JsonArray();
+					edge.add(i);
+					edge.add(graph.getOutNeighbour(i, k));
+					edges.add(edge);
+				}
+			}
+			instance.add("members", members);
+			instance.add("edges", edges);
+			instances.add(instance);
+		}
+		new GsonBuilder().setPrettyPrinting().create().toJson(instances, writer);
+		writer.write(System.lineSeparator());
+	}
+
+	/**
+	 * Writes the detected pattern instances as csv with a header and a row for every member of an instance.
+	 * The outgoing neighbours of a member are separated by semicolons.
+	 * @param graphs the detected pattern instances
+	 * @param writer the writer to write the instances to
+	 * @throws IOException thrown if the instances can't be written
+	 */
+	private void writeCsv(List<ReadableGraph> graphs, Writer writer) throws IOException {
+		writer.write("instance,pattern,name,index,role,neighbours");
+		writer.write(System.lineSeparator());
+		for (int g = 0; g < graphs.size(); g++) {
+			ReadableGraph graph = graphs.get(g);
+			for (int i = 0; i < graph.getVertices().size(); i++) {
+				ReadableVertex vertex = graph.getVertices().get(i);
+				StringBuilder neighbours = new StringBuilder();
+				for (int k = 0; k < graph.getOutDegree(i); k++) {
+					if (k > 0) {
+						neighbours.append(';');
+					}
+					neighbours.append(graph.getVertices().get(graph.getOutNeighbour(i, k)).getName());
+				}
+				writer.write(g + "," + graph.getPattern().toString().toLowerCase() + "," + escape(vertex.getName()) + "," + vertex.getIndex() + ","
+						+ escape(vertex.getRole()) + "," + escape(neighbours.toString()));
+				writer.write(System.lineSeparator());
+			}
+		}
+	}
+
+	/**
+	 * Escapes a csv field, which contains a separator, a quote or a line break, by quoting it.
+	 * @param field the field
+	 * @return the escaped field
+	 */
+	private static String escape(String field) {
+		if (field == null) {
+			return "";
+		}
+		if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+			return field;
+		}
+		return '"' + field.replace("\"", "\"\"") + '"';
+	}
+}
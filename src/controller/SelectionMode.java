@@ -0,0 +1,35 @@
+package controller;
+
+/**
+ * This class is an enumeration of the modes to select the candidates of every pattern role out of the similarity scores of a detection.
+ * Every mode interprets a single parameter, which is ignored by the threshold mode.
+ * @author Alexis T. Bernhard
+ *
+ */
+public enum SelectionMode {
+
+	/**
+	 * Selects every vertex with a score of at least the fixed threshold of the detection.
+	 */
+	THRESHOLD,
+
+	/**
+	 * Selects the k vertices with the highest scores of a role, where k is the parameter.
+	 */
+	TOP_K,
+
+	/**
+	 * Selects every vertex with a score of at least the parameter (between 0 and 1) times the highest score of a role.
+	 */
+	RELATIVE,
+
+	/**
+	 * Selects every vertex with a score of at least the mean plus the parameter times the standard deviation of the scores of a role.
+	 */
+	ADAPTIVE;
+
+	@Override
+	public String toString() {
+	    return super.toString().toLowerCase();
+	}
+}
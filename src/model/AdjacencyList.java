@@ -0,0 +1,266 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * This class stores the directed edges of a graph as sorted lists of outgoing and incoming neighbours for every vertex.
+ * The memory usage grows with the number of edges instead of the squared number of vertices of an adjacency matrix.
+ * @author Alexis T. Bernhard
+ *
+ */
+class AdjacencyList {
+
+	/**
+	 * The shared neighbour array of all vertices without any neighbours.
+	 */
+	private static final int[] NO_NEIGHBOURS = new int[0];
+
+	/**
+	 * The sorted indices of the outgoing neighbours of every vertex, an array may be larger than the degree of its vertex.
+	 */
+	private int[][] outNeighbours;
+
+	/**
+	 * The number of outgoing neighbours of every vertex.
+	 */
+	private int[] outDegrees;
+
+	/**
+	 * The sorted indices of the incoming neighbours of every vertex, an array may be larger than the degree of its vertex.
+	 */
+	private int[][] inNeighbours;
+
+	/**
+	 * The number of incoming neighbours of every vertex.
+	 */
+	private int[] inDegrees;
+
+	/**
+	 * The number of edges stored in the list.
+	 */
+	private int edgeCount;
+
+	/**
+	 * The number of vertices, the internal arrays may have a larger capacity.
+	 */
+	private int size;
+
+	/**
+	 * Initializes an adjacency list without any edges.
+	 * @param size the number of vertices
+	 */
+	AdjacencyList(int size) {
+		outNeighbours = new int[size][];
+		inNeighbours = new int[size][];
+		Arrays.fill(outNeighbours, NO_NEIGHBOURS);
+		Arrays.fill(inNeighbours, NO_NEIGHBOURS);
+		outDegrees = new int[size];
+		inDegrees = new int[size];
+		this.size = size;
+	}
+
+	/**
+	 * Gets the number of vertices
+	 * @return the number of vertices
+	 */
+	int getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets the number of edges stored in the list.
+	 * @return the number of edges
+	 */
+	int getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * Gets the number of outgoing edges of a vertex.
+	 * @param vertex the index of the vertex
+	 * @return the number of outgoing edges
+	 */
+	int getOutDegree(int vertex) {
+		return outDegrees[vertex];
+	}
+
+	/**
+	 * Gets an outgoing neighbour of a vertex, the neighbours are sorted by their index.
+	 * @param vertex the index of the vertex
+	 * @param position the position of the neighbour between 0 and the outgoing degree of the vertex
+	 * @return the index of the neighbour
+	 */
+	int getOutNeighbour(int vertex, int position) {
+		return outNeighbours[vertex][position];
+	}
+
+	/**
+	 * Gets the number of incoming edges of a vertex.
+	 * @param vertex the index of the vertex
+	 * @return the number of incoming edges
+	 */
+	int getInDegree(int vertex) {
+		return inDegrees[vertex];
+	}
+
+	/**
+	 * Gets an incoming neighbour of a vertex, the neighbours are sorted by their index.
+	 * @param vertex the index of the vertex
+	 * @param position the position of the neighbour between 0 and the incoming degree of the vertex
+	 * @return the index of the neighbour
+	 */
+	int getInNeighbour(int vertex, int position) {
+		return inNeighbours[vertex][position];
+	}
+
+	/**
+	 * Checks if an edge from the source to the destination vertex exists in O(log(degree)).
+	 * @param source the index of the source vertex
+	 * @param dest the index of the destination vertex
+	 * @return true if the edge exists
+	 */
+	boolean contains(int source, int dest) {
+		return Arrays.binarySearch(outNeighbours[source], 0, outDegrees[source], dest) >= 0;
+	}
+
+	/**
+	 * Adds an edge from the source to the destination vertex, if it does not exist yet.
+	 * @param source the index of the source vertex
+	 * @param dest the index of the destination vertex
+	 * @return true if the edge was added, false if it already existed
+	 */
+	boolean add(int source, int dest) {
+		int position = Arrays.binarySearch(outNeighbours[source], 0, outDegrees[source], dest);
+		if (position >= 0) {
+			return false;
+		}
+		outNeighbours[source] = insert(outNeighbours[source], outDegrees[source]++, -position - 1, dest);
+		position = Arrays.binarySearch(inNeighbours[dest], 0, inDegrees[dest], source);
+		inNeighbours[dest] = insert(inNeighbours[dest], inDegrees[dest]++, -position - 1, source);
+		edgeCount++;
+		return true;
+	}
+
+	/**
+	 * Removes the edge from the source to the destination vertex, if it exists.
+	 * @param source the index of the source vertex
+	 * @param dest the index of the destination vertex
+	 * @return true if the edge was removed, false if it did not exist
+	 */
+	boolean remove(int source, int dest) {
+		int position = Arrays.binarySearch(outNeighbours[source], 0, outDegrees[source], dest);
+		if (position < 0) {
+			return false;
+		}
+		delete(outNeighbours[source], outDegrees[source]--, position);
+		position = Arrays.binarySearch(inNeighbours[dest], 0, inDegrees[dest], source);
+		delete(inNeighbours[dest], inDegrees[dest]--, position);
+		edgeCount--;
+		return true;
+	}
+
+	/**
+	 * Adds a vertex without any edges, the vertex gets the next free index.
+	 */
+	void addVertex() {
+		if (size == outDegrees.length) {
+			int capacity = Math.max(4, size * 2);
+			outNeighbours = Arrays.copyOf(outNeighbours, capacity);
+			inNeighbours = Arrays.copyOf(inNeighbours, capacity);
+			Arrays.fill(outNeighbours, size, capacity, NO_NEIGHBOURS);
+			Arrays.fill(inNeighbours, size, capacity, NO_NEIGHBOURS);
+			outDegrees = Arrays.copyOf(outDegrees, capacity);
+			inDegrees = Arrays.copyOf(inDegrees, capacity);
+		}
+		size++;
+	}
+
+	/**
+	 * Removes a vertex with all its edges. The vertex with the highest index takes over the index of the removed vertex.
+	 * This costs O(degree * log(degree)) of both vertices instead of renumbering all vertices.
+	 * @param vertex the index of the vertex to remove
+	 */
+	void removeVertex(int vertex) {
+		while (outDegrees[vertex] > 0) {
+			remove(vertex, outNeighbours[vertex][outDegrees[vertex] - 1]);
+		}
+		while (inDegrees[vertex] > 0) {
+			remove(inNeighbours[vertex][inDegrees[vertex] - 1], vertex);
+		}
+		int last = size - 1;
+		if (vertex != last) {
+			for (int k = 0; k < outDegrees[last]; k++) {
+				int dest = outNeighbours[last][k];
+				relabel(inNeighbours[dest], inDegrees[dest], last, vertex);
+			}
+			for (int k = 0; k < inDegrees[last]; k++) {
+				int source = inNeighbours[last][k];
+				relabel(outNeighbours[source], outDegrees[source], last, vertex);
+			}
+			outNeighbours[vertex] = outNeighbours[last];
+			inNeighbours[vertex] = inNeighbours[last];
+			outDegrees[vertex] = outDegrees[last];
+			inDegrees[vertex] = inDegrees[last];
+		}
+		outNeighbours[last] = NO_NEIGHBOURS;
+		inNeighbours[last] = NO_NEIGHBOURS;
+		outDegrees[last] = 0;
+		inDegrees[last] = 0;
+		size--;
+	}
+
+	/**
+	 * Materializes the edges as adjacency matrix with 1.0 for every existing edge.
+	 * @return the adjacency matrix
+	 */
+	double[][] toMatrix() {
+		double[][] matrix = new double[getSize()][getSize()];
+		for (int i = 0; i < getSize(); i++) {
+			for (int k = 0; k < outDegrees[i]; k++) {
+				matrix[i][outNeighbours[i][k]] = 1.0;
+			}
+		}
+		return matrix;
+	}
+
+	/**
+	 * Inserts a value into a sorted neighbour array and grows the array if it is full.
+	 * @param neighbours the neighbour array
+	 * @param degree the number of used entries of the array
+	 * @param position the position to insert the value at
+	 * @param value the value to insert
+	 * @return the neighbour array containing the value, which is a new array if the old one was full
+	 */
+	private static int[] insert(int[] neighbours, int degree, int position, int value) {
+		int[] res = neighbours;
+		if (degree == neighbours.length) {
+			res = Arrays.copyOf(neighbours, Math.max(2, degree * 2));
+		}
+		System.arraycopy(res, position, res, position + 1, degree - position);
+		res[position] = value;
+		return res;
+	}
+
+	/**
+	 * Deletes the value at a position of a sorted neighbour array.
+	 * @param neighbours the neighbour array
+	 * @param degree the number of used entries of the array
+	 * @param position the position of the value to delete
+	 */
+	private static void delete(int[] neighbours, int degree, int position) {
+		System.arraycopy(neighbours, position + 1, neighbours, position, degree - position - 1);
+	}
+
+	/**
+	 * Replaces a value of a sorted neighbour array by another value, which is not part of the array yet.
+	 * @param neighbours the neighbour array
+	 * @param degree the number of used entries of the array
+	 * @param from the value to replace
+	 * @param to the new value
+	 */
+	private static void relabel(int[] neighbours, int degree, int from, int to) {
+		delete(neighbours, degree, Arrays.binarySearch(neighbours, 0, degree, from));
+		int position = -Arrays.binarySearch(neighbours, 0, degree - 1, to) - 1;
+		insert(neighbours, degree - 1, position, to);
+	}
+}
@@ -0,0 +1,334 @@
+package model;
+
+import java.util.Arrays;
+
+import org.ejml.data.DMatrixRMaj;
+
+import controller.SelectionMode;
+
+/**
+ * This class selects the candidates of the pattern roles out of the similarity scores of a detection.
+ * The scores are read directly from the row major data of the score matrix and the candidates are kept in primitive arrays,
+ * so only the selected candidates are sorted and no object is created per score.
+ * A selector is immutable and can be shared by concurrent detections.
+ * @author Alexis T. Bernhard
+ *
+ */
+class CandidateSelector {
+
+	/**
+	 * The threshold, which every selected score has to reach regardless of the mode.
+	 */
+	static final double THRESHOLD = 0.0001;
+
+	/**
+	 * This class contains the selected candidates of some pattern roles, where the i-th candidate consists of the i-th entry of every array.
+	 * @author Alexis T. Bernhard
+	 *
+	 */
+	static class Candidates {
+
+		/**
+		 * The indices of the vertex list of the input graph.
+		 */
+		private int[] nodes;
+
+		/**
+		 * The indices of the vertex list of the pattern graph.
+		 */
+		private int[] roles;
+
+		/**
+		 * The similarity scores of the candidates.
+		 */
+		private double[] scores;
+
+		/**
+		 * The number of candidates.
+		 */
+		private int size;
+
+		/**
+		 * Initializes an empty list of candidates.
+		 * @param capacity the initial capacity of the arrays
+		 */
+		private Candidates(int capacity) {
+			nodes = new int[Math.max(capacity, 1)];
+			roles = new int[nodes.length];
+			scores = new double[nodes.length];
+		}
+
+		/**
+		 * Gets the number of candidates.
+		 * @return the number of candidates
+		 */
+		int size() {
+			return size;
+		}
+
+		/**
+		 * Gets the index of the vertex list of the input graph of a candidate.
+		 * @param i the position of the candidate
+		 * @return the vertex index
+		 */
+		int getNode(int i) {
+			return nodes[i];
+		}
+
+		/**
+		 * Gets the index of the vertex list of the pattern graph of a candidate.
+		 * @param i the position of the candidate
+		 * @return the vertex index
+		 */
+		int getRole(int i) {
+			return roles[i];
+		}
+
+		/**
+		 * Gets the similarity score of a candidate.
+		 * @param i the position of the candidate
+		 * @return the similarity score
+		 */
+		double getScore(int i) {
+			return scores[i];
+		}
+
+		/**
+		 * Adds a candidate at the end of the list.
+		 * @param node the index of the vertex list of the input graph
+		 * @param role the index of the vertex list of the pattern graph
+		 * @param score the similarity score of the candidate
+		 */
+		private void add(int node, int role, double score) {
+			if (size == nodes.length) {
+				nodes = Arrays.copyOf(nodes, size * 2);
+				roles = Arrays.copyOf(roles, size * 2);
+				scores = Arrays.copyOf(scores, size * 2);
+			}
+			nodes[size] = node;
+			roles[size] = role;
+			scores[size] = score;
+			size++;
+		}
+
+		/**
+		 * Compares two candidates: a higher score comes first, equal scores are ordered by their role and their node.
+		 * @param a the position of the first candidate
+		 * @param b the position of the second candidate
+		 * @return a negative number, zero or a positive number if the first candidate comes before, equal to or after the second one
+		 */
+		private int compare(int a, int b) {
+			int cmp = Double.compare(scores[b], scores[a]);
+			if (cmp == 0) {
+				cmp = Integer.compare(roles[a], roles[b]);
+			}
+			if (cmp == 0) {
+				cmp = Integer.compare(nodes[a], nodes[b]);
+			}
+			return cmp;
+		}
+
+		/**
+		 * Swaps two candidates of the list.
+		 * @param a the position of the first candidate
+		 * @param b the position of the second candidate
+		 */
+		private void swap(int a, int b) {
+			int node = nodes[a];
+			int role = roles[a];
+			double score = scores[a];
+			nodes[a] = nodes[b];
+			roles[a] = roles[b];
+			scores[a] = scores[b];
+			nodes[b] = node;
+			roles[b] = role;
+			scores[b] = score;
+		}
+
+		/**
+		 * Removes all candidates from a position to the end of the list.
+		 * @param size the new number of candidates
+		 */
+		private void truncate(int size) {
+			this.size = size;
+		}
+	}
+
+	/**
+	 * The mode to select the candidates.
+	 */
+	private SelectionMode mode;
+
+	/**
+	 * The parameter of the mode: the number of candidates of a role, the fraction of the highest score or the number of standard deviations.
+	 */
+	private double parameter;
+
+	/**
+	 * Initializes a selector, which selects every candidate reaching the threshold.
+	 */
+	CandidateSelector() {
+		this(SelectionMode.THRESHOLD, 0);
+	}
+
+	/**
+	 * Initializes a selector with a mode.
+	 * @param mode the mode to select the candidates
+	 * @param parameter the parameter of the mode, see {@link SelectionMode}
+	 */
+	CandidateSelector(SelectionMode mode, double parameter) {
+		this.mode = mode;
+		this.parameter = parameter;
+	}
+
+	/**
+	 * Selects the candidates of some consecutive pattern roles (rows of the scores).
+	 * @param scores the similarity scores of the pattern (rows) and the graph (columns)
+	 * @param fromRow the first row to select from
+	 * @param toRow the row after the last row to select from
+	 * @param sorted true if the candidates are ordered by their score (highest first), false if they are ordered by their role and their node
+	 * @return the selected candidates
+	 */
+	Candidates select(DMatrixRMaj scores, int fromRow, int toRow, boolean sorted) {
+		int n = scores.numCols;
+		double[] data = scores.data;
+		Candidates candidates = new Candidates(mode == SelectionMode.TOP_K ? (int) Math.min((long) parameter * (toRow - fromRow), n) : 16);
+		for (int i = fromRow; i < toRow; i++) {
+			double cut = this.getCut(data, i * n, n);
+			int start = candidates.size();
+			for (int j = 0; j < n; j++) {
+				double score = data[i * n + j];
+				if (score >= cut) {
+					candidates.add(j, i, score);
+				}
+			}
+			if (mode == SelectionMode.TOP_K && candidates.size() - start > parameter) {
+				int k = (int) parameter;
+				select(candidates, start, candidates.size() - 1, start + k - 1);
+				candidates.truncate(start + k);
+				if (!sorted) {
+					// restore the order of the nodes, all candidates of the range have the same role
+					Arrays.sort(candidates.nodes, start, start + k);
+					for (int c = start; c < start + k; c++) {
+						candidates.scores[c] = data[i * n + candidates.nodes[c]];
+					}
+				}
+			}
+		}
+		if (sorted) {
+			sort(candidates, 0, candidates.size());
+		}
+		return candidates;
+	}
+
+	/**
+	 * Gets the lowest score of a role (row of the scores) to be selected.
+	 * @param data the row major data of the similarity scores
+	 * @param offset the position of the first score of the row
+	 * @param n the number of scores of the row
+	 * @return the lowest score to be selected
+	 */
+	private double getCut(double[] data, int offset, int n) {
+		if (mode == SelectionMode.RELATIVE) {
+			double max = 0;
+			for (int j = offset; j < offset + n; j++) {
+				max = Math.max(max, data[j]);
+			}
+			return Math.max(THRESHOLD, parameter * max);
+		} else if (mode == SelectionMode.ADAPTIVE) {
+			// mean and standard deviation of the scores reaching the threshold, the highest score is always selected
+			int count = 0;
+			double sum = 0;
+			double squares = 0;
+			double max = 0;
+			for (int j = offset; j < offset + n; j++) {
+				if (data[j] >= THRESHOLD) {
+					count++;
+					sum += data[j];
+					squares += data[j] * data[j];
+					max = Math.max(max, data[j]);
+				}
+			}
+			if (count == 0) {
+				return THRESHOLD;
+			}
+			double mean = sum / count;
+			double deviation = Math.sqrt(Math.max(0, squares / count - mean * mean));
+			return Math.max(THRESHOLD, Math.min(max, mean + parameter * deviation));
+		}
+		return THRESHOLD;
+	}
+
+	/**
+	 * Partially orders candidates, so the k-th candidate is at its sorted position and all candidates before it come before it (quickselect).
+	 * @param candidates the candidates
+	 * @param left the first position of the range to order
+	 * @param right the last position of the range to order
+	 * @param k the position to order
+	 */
+	private static void select(Candidates candidates, int left, int right, int k) {
+		while (left < right) {
+			candidates.swap((left + right) >>> 1, right);
+			int store = left;
+			for (int i = left; i < right; i++) {
+				if (candidates.compare(i, right) < 0) {
+					candidates.swap(i, store++);
+				}
+			}
+			candidates.swap(store, right);
+			if (store == k) {
+				return;
+			} else if (store < k) {
+				left = store + 1;
+			} else {
+				right = store - 1;
+			}
+		}
+	}
+
+	/**
+	 * Sorts a range of candidates by their score (merge sort), the order is total, so equal candidates can't occur.
+	 * @param candidates the candidates
+	 * @param from the first position of the range
+	 * @param to the position after the last position of the range
+	 */
+	private static void sort(Candidates candidates, int from, int to) {
+		int length = to - from;
+		if (length < 2) {
+			return;
+		}
+		// sort the positions of the candidates and reorder the arrays afterwards
+		int[] order = new int[length];
+		int[] buffer = new int[length];
+		for (int i = 0; i < length; i++) {
+			order[i] = from + i;
+		}
+		for (int width = 1; width < length; width *= 2) {
+			for (int low = 0; low < length - width; low += 2 * width) {
+				int mid = low + width;
+				int high = Math.min(low + 2 * width, length);
+				int a = low;
+				int b = mid;
+				int k = low;
+				while (a < mid && b < high) {
+					buffer[k++] = candidates.compare(order[a], order[b]) <= 0 ? order[a++] : order[b++];
+				}
+				while (a < mid) {
+					buffer[k++] = order[a++];
+				}
+				while (b < high) {
+					buffer[k++] = order[b++];
+				}
+				System.arraycopy(buffer, low, order, low, high - low);
+			}
+		}
+		int[] nodes = Arrays.copyOfRange(candidates.nodes, from, to);
+		int[] roles = Arrays.copyOfRange(candidates.roles, from, to);
+		double[] scores = Arrays.copyOfRange(candidates.scores, from, to);
+		for (int i = 0; i < length; i++) {
+			candidates.nodes[from + i] = nodes[order[i] - from];
+			candidates.roles[from + i] = roles[order[i] - from];
+			candidates.scores[from + i] = scores[order[i] - from];
+		}
+	}
+}
@@ -0,0 +1,499 @@
+package model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import controller.GraphException;
+import io.kubernetes.client.informer.ResourceEventHandler;
+import io.kubernetes.client.informer.SharedIndexInformer;
+import io.kubernetes.client.informer.SharedInformerFactory;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.openapi.models.V1Endpoints;
+import io.kubernetes.client.openapi.models.V1EndpointsList;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1PodList;
+import io.kubernetes.client.openapi.models.V1Service;
+import io.kubernetes.client.openapi.models.V1ServiceList;
+
+/**
+ * This class watches the pods, services and endpoints of the kubernetes cluster with informers and keeps a graph up to date by applying their changes incrementally.
+ * The informers just queue all changes. The changes are applied by the thread of the next detection run, so the graph never changes during a detection.
+ * @author Alexis T. Bernhard
+ *
+ */
+class ClusterWatcher {
+
+	/**
+	 * The maximal time in milliseconds to wait for the first complete list of all watched resources.
+	 */
+	private static final long SYNC_TIMEOUT = 60000;
+
+	/**
+	 * The time in milliseconds between two checks, whether the informers received the first complete list.
+	 */
+	private static final long SYNC_INTERVAL = 100;
+
+	/**
+	 * The kinds of resources, whose changes are watched.
+	 */
+	private enum Kind {
+		POD, SERVICE, ENDPOINTS
+	}
+
+	/**
+	 * This class represents a queued change of a watched resource.
+	 * @author Alexis T. Bernhard
+	 *
+	 */
+	private static class ClusterEvent {
+
+		/**
+		 * The kind of the changed resource.
+		 */
+		private Kind kind;
+
+		/**
+		 * The name of the changed resource.
+		 */
+		private String name;
+
+		/**
+		 * True if the resource was deleted.
+		 */
+		private boolean deleted;
+
+		/**
+		 * The id of a changed pod made out of the pod ip and the node name, otherwise null.
+		 */
+		private String podId;
+
+		/**
+		 * The names of all pods a changed endpoint refers to, otherwise null.
+		 */
+		private List<String> targets;
+
+		/**
+		 * Initializes a new change of a watched resource.
+		 * @param kind the kind of the changed resource
+		 * @param name the name of the changed resource
+		 * @param deleted true if the resource was deleted
+		 */
+		ClusterEvent(Kind kind, String name, boolean deleted) {
+			this.kind = kind;
+			this.name = name;
+			this.deleted = deleted;
+		}
+	}
+
+	/**
+	 * The factory which creates and runs all informers.
+	 */
+	private SharedInformerFactory factory;
+
+	/**
+	 * The threads running the informers.
+	 */
+	private ExecutorService informerThreads;
+
+	/**
+	 * All informers which watch a kind of resources.
+	 */
+	private List<SharedIndexInformer<?>> informers;
+
+	/**
+	 * The changes received by the informers, which are not applied to the graph yet.
+	 */
+	private Queue<ClusterEvent> events;
+
+	/**
+	 * True if the endpoints of the services are transformed into edges, otherwise all edges are received from the conntrack infrastructure.
+	 */
+	private boolean endpointEdges;
+
+	/**
+	 * A map containing all pods of the graph, it maps a pod id (made out of the pod ip (veth0) and the node name) to the pod name.
+	 */
+	private Map<String, String> pods;
+
+	/**
+	 * A map of all pods of the graph, which maps the pod name to the pod id.
+	 */
+	private Map<String, String> podIds;
+
+	/**
+	 * The watched namespaces.
+	 */
+	private Set<String> namespaces;
+
+	/**
+	 * True if the vertex names are qualified by their namespace, since more than a single namespace is watched.
+	 */
+	private boolean qualified;
+
+	/**
+	 * The names of all services of the graph.
+	 */
+	private Set<String> services;
+
+	/**
+	 * A map of the endpoints of all services, which maps a service name to the names of its pods.
+	 */
+	private Map<String, List<String>> endpoints;
+
+	/**
+	 * A map of the pods of all endpoints, which maps a pod name to the names of the services referring to it.
+	 */
+	private Map<String, Set<String>> podServices;
+
+	/**
+	 * Initializes the watcher by registering an informer for the pods, the services and the endpoints of the cluster.
+	 * @param client the kubernetes client class to create a separate connection for the long running watch requests
+	 * A single namespace is watched by namespaced requests, several namespaces are watched by requests for all namespaces, whose resources are filtered by their namespace. If no namespace is selected, nothing is watched.
+	 * The watched namespaces are selected once, so namespaces created afterwards are not watched.
+	 * @param endpointEdges true if the endpoints of the services should be transformed into edges
+	 * @throws IOException thrown if no authentication method and data is inserted.
+	 * @throws ApiException thrown if the list call of the namespaces to the kubernetes client fails
+	 */
+	ClusterWatcher(KubClient client, boolean endpointEdges) throws IOException, ApiException {
+		this.endpointEdges = endpointEdges;
+		List<String> namespaceList = client.getNamespaces();
+		namespaces = new HashSet<>(namespaceList);
+		qualified = namespaceList.size() > 1;
+		events = new ConcurrentLinkedQueue<>();
+		pods = new HashMap<>();
+		podIds = new HashMap<>();
+		services = new HashSet<>();
+		endpoints = new HashMap<>();
+		podServices = new HashMap<>();
+		informers = new ArrayList<>();
+
+		// watch requests are kept open by the api server, so they must not run into the read timeout of the list requests
+		ApiClient apiClient = client.createApiClient();
+		apiClient.setHttpClient(apiClient.getHttpClient().newBuilder().readTimeout(0, TimeUnit.SECONDS).build());
+		CoreV1Api api = new CoreV1Api(apiClient);
+		informerThreads = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "cluster-watcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		factory = new SharedInformerFactory(apiClient, informerThreads);
+		if (namespaceList.isEmpty()) {
+			// no namespace matches the selection, so nothing is watched, like a transformation of no namespace results in an empty graph
+			return;
+		}
+
+		SharedIndexInformer<V1Pod> podInformer = factory.sharedIndexInformerFor(params -> {
+			if (namespaceList.size() == 1) {
+				return api.listNamespacedPodCall(namespaceList.get(0), null, null, null, client.getPodFieldSelector(), client.getPodLabelSelector(), null,
+						params.resourceVersion, params.timeoutSeconds, params.watch, null);
+			}
+			return api.listPodForAllNamespacesCall(null, null, client.getPodFieldSelector(), client.getPodLabelSelector(), null, null,
+					params.resourceVersion, params.timeoutSeconds, params.watch, null);
+		}, V1Pod.class, V1PodList.class);
+		podInformer.addEventHandler(new ResourceEventHandler<V1Pod>() {
+			@Override
+			public void onAdd(V1Pod pod) {
+				queuePod(pod, false);
+			}
+
+			@Override
+			public void onUpdate(V1Pod oldPod, V1Pod newPod) {
+				queuePod(newPod, false);
+			}
+
+			@Override
+			public void onDelete(V1Pod pod, boolean deletedFinalStateUnknown) {
+				queuePod(pod, true);
+			}
+		});
+		informers.add(podInformer);
+
+		SharedIndexInformer<V1Service> serviceInformer = factory.sharedIndexInformerFor(params -> {
+			if (namespaceList.size() == 1) {
+				return api.listNamespacedServiceCall(namespaceList.get(0), null, null, null, null, client.getServiceLabelSelector(), null,
+						params.resourceVersion, params.timeoutSeconds, params.watch, null);
+			}
+			return api.listServiceForAllNamespacesCall(null, null, null, client.getServiceLabelSelector(), null, null,
+					params.resourceVersion, params.timeoutSeconds, params.watch, null);
+		}, V1Service.class, V1ServiceList.class);
+		serviceInformer.addEventHandler(new ResourceEventHandler<V1Service>() {
+			@Override
+			public void onAdd(V1Service service) {
+				queueService(service, false);
+			}
+
+			@Override
+			public void onUpdate(V1Service oldService, V1Service newService) {
+				// the name of a service can not change
+			}
+
+			@Override
+			public void onDelete(V1Service service, boolean deletedFinalStateUnknown) {
+				queueService(service, true);
+			}
+		});
+		informers.add(serviceInformer);
+
+		SharedIndexInformer<V1Endpoints> endpointInformer = factory.sharedIndexInformerFor(params -> {
+			if (namespaceList.size() == 1) {
+				return api.listNamespacedEndpointsCall(namespaceList.get(0), null, null, null, null, null, null,
+						params.resourceVersion, params.timeoutSeconds, params.watch, null);
+			}
+			return api.listEndpointsForAllNamespacesCall(null, null, null, null, null, null,
+					params.resourceVersion, params.timeoutSeconds, params.watch, null);
+		}, V1Endpoints.class, V1EndpointsList.class);
+		endpointInformer.addEventHandler(new ResourceEventHandler<V1Endpoints>() {
+			@Override
+			public void onAdd(V1Endpoints end) {
+				queueEndpoints(end, false);
+			}
+
+			@Override
+			public void onUpdate(V1Endpoints oldEnd, V1Endpoints newEnd) {
+				queueEndpoints(newEnd, false);
+			}
+
+			@Override
+			public void onDelete(V1Endpoints end, boolean deletedFinalStateUnknown) {
+				queueEndpoints(end, true);
+			}
+		});
+		informers.add(endpointInformer);
+	}
+
+	/**
+	 * Starts all informers and waits until every informer received the first complete list of its resources.
+	 * @throws ApiException thrown if the informers do not receive the lists in time
+	 * @throws InterruptedException thrown if a user interrupts the thread
+	 */
+	void start() throws ApiException, InterruptedException {
+		factory.startAllRegisteredInformers();
+		long deadline = System.currentTimeMillis() + SYNC_TIMEOUT;
+		for (SharedIndexInformer<?> informer : informers) {
+			while (!informer.hasSynced()) {
+				if (System.currentTimeMillis() > deadline) {
+					this.stop();
+					throw new ApiException("The watch of the cluster failed: The pods, services and endpoints were not listed within " + SYNC_TIMEOUT / 1000 + " seconds.");
+				}
+				Thread.sleep(SYNC_INTERVAL);
+			}
+		}
+	}
+
+	/**
+	 * Stops all informers and their threads.
+	 */
+	void stop() {
+		factory.stopAllRegisteredInformers();
+		informerThreads.shutdownNow();
+	}
+
+	/**
+	 * Gets the pods of the graph after the last applied changes.
+	 * @return A map containing information about pods of the graph, it maps a pod id (made out of the pod ip (veth0) and the node name) to the pod name.
+	 */
+	Map<String, String> getPods() {
+		return pods;
+	}
+
+	/**
+	 * Applies all queued changes of the cluster to the graph. The graph must have a generated adjacency matrix.
+	 * Added pods and services are appended as vertices, deleted ones are removed with their edges and the edges of all changed endpoints are updated.
+	 * @param graph the graph to update
+	 * @return true if at least one change was applied
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 */
+	boolean applyChanges(Graph graph) throws GraphException {
+		Set<String> changedServices = new HashSet<>();
+		boolean changed = false;
+		ClusterEvent event = events.poll();
+		while (event != null) {
+			changed = true;
+			switch (event.kind) {
+			case POD:
+				String oldId = podIds.remove(event.name);
+				if (oldId != null) {
+					pods.remove(oldId);
+				}
+				if (event.deleted) {
+					this.removeVertex(graph, event.name);
+				} else {
+					podIds.put(event.name, event.podId);
+					pods.put(event.podId, event.name);
+					if (this.addVertex(graph, event.name)) {
+						changedServices.addAll(podServices.getOrDefault(event.name, Collections.emptySet()));
+					}
+				}
+				break;
+			case SERVICE:
+				if (event.deleted) {
+					services.remove(event.name);
+					this.removeVertex(graph, event.name);
+				} else {
+					services.add(event.name);
+					this.addVertex(graph, event.name);
+					changedServices.add(event.name);
+				}
+				break;
+			case ENDPOINTS:
+				List<String> oldTargets = endpoints.remove(event.name);
+				if (oldTargets != null) {
+					for (String target : oldTargets) {
+						podServices.get(target).remove(event.name);
+					}
+				}
+				if (!event.deleted) {
+					endpoints.put(event.name, event.targets);
+					for (String target : event.targets) {
+						podServices.computeIfAbsent(target, name -> new HashSet<>()).add(event.name);
+					}
+				}
+				changedServices.add(event.name);
+				break;
+			}
+			event = events.poll();
+		}
+		if (endpointEdges) {
+			for (String service : changedServices) {
+				this.updateEndpointEdges(graph, service);
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Queues a change of a pod of the watched namespace.
+	 * @param pod the changed pod
+	 * @param deleted true if the pod was deleted
+	 */
+	private void queuePod(V1Pod pod, boolean deleted) {
+		if (this.isWatched(pod.getMetadata())) {
+			ClusterEvent event = new ClusterEvent(Kind.POD, this.getVertexName(pod.getMetadata(), pod.getMetadata().getName()), deleted);
+			event.podId = KubClient.getPodId(pod);
+			events.add(event);
+		}
+	}
+
+	/**
+	 * Queues a change of a service of a watched namespace, the kubernetes service is ignored.
+	 * @param service the changed service
+	 * @param deleted true if the service was deleted
+	 */
+	private void queueService(V1Service service, boolean deleted) {
+		if (this.isWatched(service.getMetadata()) && !service.getMetadata().getName().equals("kubernetes")) {
+			events.add(new ClusterEvent(Kind.SERVICE, this.getVertexName(service.getMetadata(), service.getMetadata().getName()), deleted));
+		}
+	}
+
+	/**
+	 * Queues a change of the endpoints of a service of a watched namespace, the endpoints of the kubernetes infrastructure are ignored.
+	 * @param end the changed endpoints
+	 * @param deleted true if the endpoints were deleted
+	 */
+	private void queueEndpoints(V1Endpoints end, boolean deleted) {
+		if (this.isWatched(end.getMetadata()) && !KubClient.IGNORED_SERVICES.contains(end.getMetadata().getName())) {
+			ClusterEvent event = new ClusterEvent(Kind.ENDPOINTS, this.getVertexName(end.getMetadata(), end.getMetadata().getName()), deleted);
+			event.targets = new ArrayList<>();
+			for (String target : KubClient.getEndpointTargets(end)) {
+				event.targets.add(this.getVertexName(end.getMetadata(), target));
+			}
+			events.add(event);
+		}
+	}
+
+	/**
+	 * Checks if a resource is part of a watched namespace.
+	 * Requests for all namespaces also return resources of unselected namespaces, so the namespace is checked for every resource.
+	 * @param meta the meta data of the resource
+	 * @return true if the namespace of the resource is watched
+	 */
+	private boolean isWatched(V1ObjectMeta meta) {
+		return namespaces.contains(meta.getNamespace());
+	}
+
+	/**
+	 * Gets the name of the vertex of a resource in the graph.
+	 * @param meta the meta data of the resource, which contains its namespace
+	 * @param name the name of the resource
+	 * @return the vertex name, which is qualified by the namespace if several namespaces are watched
+	 */
+	private String getVertexName(V1ObjectMeta meta, String name) {
+		return KubClient.getVertexName(meta.getNamespace(), name, qualified);
+	}
+
+	/**
+	 * Appends a vertex to the graph, if no vertex with this name exists.
+	 * @param graph the graph to update
+	 * @param name the name of the vertex
+	 * @return true if the vertex was appended
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 */
+	private boolean addVertex(Graph graph, String name) throws GraphException {
+		if (graph.getIndexByName(name) >= 0) {
+			return false;
+		}
+		graph.appendVertex(new Vertex(name, graph.getVertices().size()));
+		return true;
+	}
+
+	/**
+	 * Deletes a vertex with all its edges from the graph, if a vertex with this name exists.
+	 * @param graph the graph to update
+	 * @param name the name of the vertex
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 */
+	private void removeVertex(Graph graph, String name) throws GraphException {
+		if (graph.getIndexByName(name) >= 0) {
+			graph.deleteVertex(name);
+		}
+	}
+
+	/**
+	 * Updates the edges of a service vertex to the pods of its endpoints, which are part of the graph.
+	 * @param graph the graph to update
+	 * @param service the name of the service
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 */
+	private void updateEndpointEdges(Graph graph, String service) throws GraphException {
+		int source = graph.getIndexByName(service);
+		if (source < 0) {
+			return;
+		}
+		Set<Integer> targets = new HashSet<>();
+		if (services.contains(service)) {
+			for (String pod : endpoints.getOrDefault(service, Collections.emptyList())) {
+				int dest = graph.getIndexByName(pod);
+				if (dest >= 0 && dest != source) {
+					targets.add(dest);
+				}
+			}
+		}
+		List<Integer> outdated = new ArrayList<>();
+		for (int k = 0; k < graph.getOutDegree(source); k++) {
+			int dest = graph.getOutNeighbour(source, k);
+			if (!targets.remove(dest)) {
+				outdated.add(dest);
+			}
+		}
+		for (int dest : outdated) {
+			graph.removeEdgeByIndex(source, dest, 0);
+		}
+		for (int dest : targets) {
+			graph.addEdgeByIndex(source, dest, 0);
+		}
+	}
+}
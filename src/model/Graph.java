@@ -1,7 +1,9 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import controller.GraphException;
 import controller.PatternType;
@@ -19,14 +21,30 @@ class Graph implements ReadableGraph {
 	private List<ModifiableVertex> vertices;
 
 	/**
-	 * The internal matrix of edges, which are part of the graph
+	 * The internal index which maps the name of a vertex to its position in the vertex list.
+	 * It is kept in sync with the vertex list and fixed together with the adjacency matrix.
 	 */
-	private double[][] edges;
+	private Map<String, Integer> vertexPositions;
 
 	/**
-	 * The internal matrix of edges to pods of the same replica-set, which are part of the graph.
+	 * The internal list of edges, which are part of the graph
 	 */
-	private double[][] replicaEdges;
+	private AdjacencyList edges;
+
+	/**
+	 * The internal list of edges to pods of the same replica-set, which are part of the graph.
+	 */
+	private AdjacencyList replicaEdges;
+
+	/**
+	 * The adjacency matrix of the edges, which is just materialized on demand for compatibility.
+	 */
+	private double[][] edgeMatrix;
+
+	/**
+	 * The adjacency matrix of the replica-set edges, which is just materialized on demand for compatibility.
+	 */
+	private double[][] replicaEdgeMatrix;
 
 	/**
 	 * The internal type of pattern this graph is represented.
@@ -45,6 +63,11 @@ class Graph implements ReadableGraph {
 	 */
 	private boolean fixedGraph = false;
 
+	/**
+	 * The version of the edges of the graph, which is increased whenever the adjacency matrices are invalidated.
+	 */
+	private long version;
+
 	@Override
 	public List<ModifiableVertex> getVertices() {
 		return vertices;
@@ -52,12 +75,26 @@ class Graph implements ReadableGraph {
 
 	@Override
 	public ModifiableVertex getVertexByName(String name) {
-		ModifiableVertex resvertex = null;
-		for (ModifiableVertex vertex : vertices) {
-			if (vertex.getName().equals(name))
-				resvertex = vertex;
+		Integer position = vertexPositions.get(name);
+		if (position == null) {
+			return null;
+		} else {
+			return vertices.get(position);
+		}
+	}
+
+	/**
+	 * Gets the index of a vertex in the vertex list by its name
+	 * @param name the name of the vertex to find in the graph
+	 * @return the index of the vertex or -1 if no vertex with this name exists
+	 */
+	int getIndexByName(String name) {
+		Integer position = vertexPositions.get(name);
+		if (position == null) {
+			return -1;
+		} else {
+			return position;
 		}
-		return resvertex;
 	}
 
 	@Override
@@ -70,15 +107,37 @@ class Graph implements ReadableGraph {
 	}
 
 	@Override
-	public double[][] getAdjacencyMatrix() {
-		return edges;
+	public synchronized double[][] getAdjacencyMatrix() {
+		if (edgeMatrix == null && edges != null) {
+			edgeMatrix = edges.toMatrix();
+		}
+		return edgeMatrix;
 	}
 
 	/**
 	 * Gets the replica adjacency matrix of the graph containing all edges
 	 * @return the replica adjacency matrix
 	 */
-	public double[][] getReplicaAdjacencyMatrix() {
+	public synchronized double[][] getReplicaAdjacencyMatrix() {
+		if (replicaEdgeMatrix == null && replicaEdges != null) {
+			replicaEdgeMatrix = replicaEdges.toMatrix();
+		}
+		return replicaEdgeMatrix;
+	}
+
+	/**
+	 * Gets the list of all edges of the graph
+	 * @return the adjacency list or null if the adjacency list is not generated yet
+	 */
+	AdjacencyList getAdjacencyList() {
+		return edges;
+	}
+
+	/**
+	 * Gets the list of all edges to pods of the same replica-set
+	 * @return the replica adjacency list or null if the adjacency list is not generated yet
+	 */
+	AdjacencyList getReplicaAdjacencyList() {
 		return replicaEdges;
 	}
 
@@ -88,15 +147,39 @@ class Graph implements ReadableGraph {
 			return -1;
 		}
 		int result = 0;
-		if (edges[vertex1][vertex2] > 0) {
+		if (edges.contains(vertex1, vertex2)) {
 			result++;
 		}
-		if (edges[vertex2][vertex1] > 0) {
+		if (edges.contains(vertex2, vertex1)) {
 			result += 2;
 		}
 		return result;
 	}
 
+	@Override
+	public int getEdgeCount() {
+		return edges == null ? 0 : edges.getEdgeCount();
+	}
+
+	@Override
+	public int getOutDegree(int vertex) {
+		return edges.getOutDegree(vertex);
+	}
+
+	@Override
+	public int getOutNeighbour(int vertex, int position) {
+		return edges.getOutNeighbour(vertex, position);
+	}
+
+	@Override
+	public int getInDegree(int vertex) {
+		return edges.getInDegree(vertex);
+	}
+
+	@Override
+	public int getInNeighbour(int vertex, int position) {
+		return edges.getInNeighbour(vertex, position);
+	}
 
 
 	@Override
@@ -133,6 +216,7 @@ class Graph implements ReadableGraph {
 	 */
 	Graph() {
 		vertices = new ArrayList<>();
+		vertexPositions = new HashMap<>();
 	}
 
 	/**
@@ -142,6 +226,7 @@ class Graph implements ReadableGraph {
 	 */
 	void addVertex(ModifiableVertex vertex) throws GraphException {
 		if (!fixedGraph) {
+			vertexPositions.put(vertex.getName(), vertices.size());
 			vertices.add(vertex);
 		} else {
 			throw new GraphException("Adding a vertex to the graph failed: Adjacency matrix set. Please remove the adjacency matrix.");
@@ -155,20 +240,110 @@ class Graph implements ReadableGraph {
 	 */
 	void removeVertex(ModifiableVertex vertex) throws GraphException {
 		if(!fixedGraph) {
-			vertices.remove(vertex);
+			if (vertices.remove(vertex)) {
+				// all following vertices moved one position to the front
+				vertexPositions.clear();
+				for (int i = 0; i < vertices.size(); i++) {
+					vertexPositions.put(vertices.get(i).getName(), i);
+				}
+			}
 		} else {
 			throw new GraphException("Removing a vertex to the graph failed: Adjacency matrix set. Please remove the adjacency matrix.");
 		}
 	}
 
 	/**
-	 * Generates the adjacency matrix of the graph
+	 * Appends a vertex to a graph, whose adjacency matrix is already generated. The vertex gets the next free index of the vertex list.
+	 * This allows to keep a graph up to date with the cluster without generating the whole graph again.
+	 * @param vertex the vertex to append
+	 * @throws GraphException thrown if the adjacency matrix is not generated yet or a vertex with the same name already exists
+	 */
+	void appendVertex(ModifiableVertex vertex) throws GraphException {
+		if (!fixedGraph) {
+			throw new GraphException("Appending a vertex to the graph failed: Adjacency matrix not set. Please add the vertex before generating the adjacency matrix.");
+		} else if (vertexPositions.containsKey(vertex.getName())) {
+			throw new GraphException("Appending a vertex to the graph failed: A vertex with the name " + vertex.getName() + " already exists.");
+		} else {
+			vertex.setIndex(vertices.size());
+			vertexPositions.put(vertex.getName(), vertices.size());
+			vertices.add(vertex);
+			edges.addVertex();
+			replicaEdges.addVertex();
+			invalidateMatrices();
+		}
+	}
+
+	/**
+	 * Deletes a vertex with all its edges from a graph, whose adjacency matrix is already generated.
+	 * The last vertex of the vertex list takes over the index of the deleted vertex, so no other vertices are moved.
+	 * @param name the name of the vertex to delete
+	 * @throws GraphException thrown if the adjacency matrix is not generated yet or no vertex with this name exists
+	 */
+	void deleteVertex(String name) throws GraphException {
+		if (!fixedGraph || !vertexPositions.containsKey(name)) {
+			throw new GraphException("Deleting the vertex " + name + " of the graph failed: Adjacency matrix not set or vertex not found.");
+		} else {
+			int position = vertexPositions.remove(name);
+			int last = vertices.size() - 1;
+			edges.removeVertex(position);
+			replicaEdges.removeVertex(position);
+			ModifiableVertex moved = vertices.remove(last);
+			if (position != last) {
+				vertices.set(position, moved);
+				moved.setIndex(position);
+				vertexPositions.put(moved.getName(), position);
+			}
+			invalidateMatrices();
+		}
+	}
+
+	/**
+	 * Merges a subgraph into a graph, whose adjacency matrix is already generated. All vertices of the subgraph are appended with their edges.
+	 * The vertex names of both graphs must be disjoint, e.g. by qualifying the names by the namespace of the vertices.
+	 * @param subgraph the subgraph to merge, whose adjacency matrix is already generated
+	 * @throws GraphException thrown if an adjacency matrix is not generated yet or a vertex name is part of both graphs
+	 */
+	void merge(Graph subgraph) throws GraphException {
+		if (!fixedGraph || !subgraph.fixedGraph) {
+			throw new GraphException("Merging the graphs failed: Adjacency matrix not set. Please generate the adjacency matrices of both graphs before merging them.");
+		}
+		for (ModifiableVertex vertex : subgraph.vertices) {
+			if (vertexPositions.containsKey(vertex.getName())) {
+				throw new GraphException("Merging the graphs failed: A vertex with the name " + vertex.getName() + " is part of both graphs.");
+			}
+		}
+		int offset = vertices.size();
+		for (ModifiableVertex vertex : subgraph.vertices) {
+			this.appendVertex(new Vertex(vertex.getName(), vertices.size()));
+		}
+		for (int i = 0; i < subgraph.vertices.size(); i++) {
+			for (int k = 0; k < subgraph.edges.getOutDegree(i); k++) {
+				edges.add(offset + i, offset + subgraph.edges.getOutNeighbour(i, k));
+			}
+			for (int k = 0; k < subgraph.replicaEdges.getOutDegree(i); k++) {
+				replicaEdges.add(offset + i, offset + subgraph.replicaEdges.getOutNeighbour(i, k));
+			}
+		}
+		invalidateMatrices();
+	}
+
+	/**
+	 * Removes all edges of the graph but keeps all vertices.
+	 */
+	void removeEdges() {
+		edges = new AdjacencyList(vertices.size());
+		replicaEdges = new AdjacencyList(vertices.size());
+		invalidateMatrices();
+	}
+
+	/**
+	 * Generates the adjacency lists of the graph
 	 * Warning: After using this no vertices can be added to the Graph (reset adjacency matrix to add more vertices)
-	 * @param size the final size of the adjacency matrix of the graph (equals the size of the vertex list)
 	 */
 	void generateAdjacencyMatrices() {
-		edges = new double[vertices.size()][vertices.size()];
-		replicaEdges = new double[vertices.size()][vertices.size()];
+		edges = new AdjacencyList(vertices.size());
+		replicaEdges = new AdjacencyList(vertices.size());
+		invalidateMatrices();
 		fixedGraph = true;
 	}
 
@@ -177,7 +352,26 @@ class Graph implements ReadableGraph {
 	 */
 	void removeAdjacencyMatrix() {
 		fixedGraph = false;
-		edges = new double[0][0];
+		edges = new AdjacencyList(0);
+		invalidateMatrices();
+	}
+
+	/**
+	 * Drops the materialized adjacency matrices after the edges of the graph changed and increases the version of the graph.
+	 */
+	private synchronized void invalidateMatrices() {
+		edgeMatrix = null;
+		replicaEdgeMatrix = null;
+		version++;
+	}
+
+	/**
+	 * Gets the version of the edges of the graph, which increases with every change of the edges or the fixed vertices.
+	 * Data derived from the edges stays valid as long as the version of the graph does not change.
+	 * @return the version of the graph
+	 */
+	synchronized long getVersion() {
+		return version;
 	}
 
 	/**
@@ -207,9 +401,10 @@ class Graph implements ReadableGraph {
 				sourceIndex == destIndex) {
 			throw new GraphException("The edge creation failed due to a badly defined input vertex index or a self pointing edge.");
 		} else {
-			edges[sourceIndex][destIndex] = 1.0;
+			edges.add(sourceIndex, destIndex);
 			if (type == 1)
-				replicaEdges[sourceIndex][destIndex] = 1.0;
+				replicaEdges.add(sourceIndex, destIndex);
+			invalidateMatrices();
 		}
 	}
 
@@ -221,15 +416,30 @@ class Graph implements ReadableGraph {
 	 * @throws GraphException thrown if one of the input vertices is badly defined
 	 */
 	void removeEdge(ModifiableVertex source, ModifiableVertex dest, int type) throws GraphException {
-		if (source == null || dest == null ||
-				source.getIndex() < 0 || source.getIndex() >= vertices.size()||
-				dest.getIndex() < 0 ||  dest.getIndex() >= vertices.size() ||
-				source.getIndex() ==  dest.getIndex()) {
+		if (source == null || dest == null) {
+			throw new GraphException("The edge deletion failed due to a badly defined input vertex index or a self pointing edge.");
+		} else {
+			this.removeEdgeByIndex(source.getIndex(), dest.getIndex(), type);
+		}
+	}
+
+	/**
+	 * Removes an edge of the graph by an index
+	 * @param sourceIndex the source index of the vertex in the vertex list
+	 * @param destIndex the destination index of the vertex in the vertex list
+	 * @param type the type of the application, 1 = replicaset edge
+	 * @throws GraphException thrown if one of the input vertices is badly defined
+	 */
+	void removeEdgeByIndex(int sourceIndex, int destIndex, int type) throws GraphException {
+		if (sourceIndex < 0 || sourceIndex >= vertices.size()||
+				destIndex < 0 ||  destIndex >= vertices.size() ||
+				sourceIndex ==  destIndex) {
 			throw new GraphException("The edge deletion failed due to a badly defined input vertex index or a self pointing edge.");
 		} else {
-			edges[source.getIndex()][dest.getIndex()] = 0.0;
+			edges.remove(sourceIndex, destIndex);
 			if (type == 1)
-				replicaEdges[source.getIndex()][dest.getIndex()] = 0.0;
+				replicaEdges.remove(sourceIndex, destIndex);
+			invalidateMatrices();
 		}
 	}
 
@@ -267,8 +477,11 @@ class Graph implements ReadableGraph {
 	void clear() {
 		pattern = null;
 		edges = null;
+		replicaEdges = null;
+		invalidateMatrices();
 		fixedGraph = false;
 		roleAppearances = null;
 		vertices.clear();
+		vertexPositions.clear();
 	}
 }
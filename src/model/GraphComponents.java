@@ -0,0 +1,121 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class splits the edges of a graph into its weakly connected components, which are vertices connected by edges of any direction.
+ * Apart from the shared normalization, the similarity scores of different components don't influence each other, so the products of every component can be calculated on its own.
+ * The vertices of a component keep the order of the graph, so the neighbours of a vertex keep their order as well.
+ * A connected graph is not copied, its only component shares the edges of the graph.
+ * @author Alexis T. Bernhard
+ *
+ */
+class GraphComponents {
+
+	/**
+	 * The indices of the vertices of every component in the graph.
+	 */
+	private List<int[]> vertices;
+
+	/**
+	 * The edges of every component between the positions of its vertices.
+	 */
+	private List<AdjacencyList> edges;
+
+	/**
+	 * Splits the edges of a graph into its weakly connected components.
+	 * @param list the edges of the graph
+	 */
+	GraphComponents(AdjacencyList list) {
+		int size = list.getSize();
+
+		// union find with path halving over all edges
+		int[] parents = new int[size];
+		for (int v = 0; v < size; v++) {
+			parents[v] = v;
+		}
+		for (int v = 0; v < size; v++) {
+			for (int k = 0; k < list.getOutDegree(v); k++) {
+				int a = find(parents, v);
+				int b = find(parents, list.getOutNeighbour(v, k));
+				if (a != b) {
+					parents[Math.max(a, b)] = Math.min(a, b);
+				}
+			}
+		}
+
+		// number the components in the order of their first vertex and the vertices in the order of the graph
+		int[] components = new int[size];
+		int[] positions = new int[size];
+		int[] counts = new int[size];
+		int count = 0;
+		for (int v = 0; v < size; v++) {
+			int root = find(parents, v);
+			if (root == v) {
+				components[v] = count++;
+			} else {
+				components[v] = components[root];
+			}
+			positions[v] = counts[components[v]]++;
+		}
+		vertices = new ArrayList<>(count);
+		edges = new ArrayList<>(count);
+		if (count == 1) { // a connected graph is its own component
+			vertices.add(positions);
+			edges.add(list);
+			return;
+		}
+		for (int c = 0; c < count; c++) {
+			vertices.add(new int[counts[c]]);
+			edges.add(new AdjacencyList(counts[c]));
+		}
+		for (int v = 0; v < size; v++) {
+			vertices.get(components[v])[positions[v]] = v;
+			AdjacencyList component = edges.get(components[v]);
+			for (int k = 0; k < list.getOutDegree(v); k++) {
+				component.add(positions[v], positions[list.getOutNeighbour(v, k)]);
+			}
+		}
+	}
+
+	/**
+	 * Finds the root of the tree of a vertex and halves the path to it.
+	 * @param parents the parent of every vertex
+	 * @param v the index of the vertex
+	 * @return the index of the root
+	 */
+	private static int find(int[] parents, int v) {
+		while (parents[v] != v) {
+			parents[v] = parents[parents[v]];
+			v = parents[v];
+		}
+		return v;
+	}
+
+	/**
+	 * Gets the number of components.
+	 * @return the number of components
+	 */
+	int size() {
+		return vertices.size();
+	}
+
+	/**
+	 * Gets the indices of the vertices of a component in the graph, ordered by their index.
+	 * @param component the number of the component
+	 * @return the vertex indices
+	 */
+	int[] getVertices(int component) {
+		return vertices.get(component);
+	}
+
+	/**
+	 * Gets the edges of a component between the positions of its vertices.
+	 * @param component the number of the component
+	 * @return the adjacency list of the component
+	 */
+	AdjacencyList getEdges(int component) {
+		return edges.get(component);
+	}
+}
@@ -0,0 +1,176 @@
+package model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class contains a copy of the vertex names and edges of a graph at the time of a detection,
+ * so the vertices, whose edges changed since the detection, can be found in a later version of the graph.
+ * The vertices of two versions are matched by their names, so the vertices may be reordered in between.
+ * A snapshot is immutable and can be read by concurrent detections.
+ * @author Alexis T. Bernhard
+ *
+ */
+class GraphSnapshot {
+
+	/**
+	 * The graph, whose edges are copied.
+	 */
+	private Graph graph;
+
+	/**
+	 * The version of the graph, when the edges were copied.
+	 */
+	private long version;
+
+	/**
+	 * The names of the vertices in the order of the graph.
+	 */
+	private String[] names;
+
+	/**
+	 * The index of every vertex by its name.
+	 */
+	private Map<String, Integer> indices;
+
+	/**
+	 * The indices of the outgoing neighbours of every vertex.
+	 */
+	private int[][] neighbours;
+
+	/**
+	 * The indices of the outgoing neighbours of every vertex over the replica-set edges.
+	 */
+	private int[][] replicaNeighbours;
+
+	/**
+	 * Copies the vertex names and edges of a graph.
+	 * @param graph the graph to copy
+	 * @param version the version of the graph, which has to be read before the edges
+	 */
+	GraphSnapshot(Graph graph, long version) {
+		this.graph = graph;
+		this.version = version;
+		names = new String[graph.getVertices().size()];
+		indices = new HashMap<>(names.length * 2);
+		for (int v = 0; v < names.length; v++) {
+			names[v] = graph.getVertices().get(v).getName();
+			indices.put(names[v], v);
+		}
+		neighbours = copy(graph.getAdjacencyList(), names.length);
+		replicaNeighbours = copy(graph.getReplicaAdjacencyList(), names.length);
+	}
+
+	/**
+	 * Copies the outgoing neighbours of every vertex out of an adjacency list.
+	 * @param list the adjacency list or null if the graph has no edges
+	 * @param size the number of vertices
+	 * @return the indices of the outgoing neighbours of every vertex
+	 */
+	private static int[][] copy(AdjacencyList list, int size) {
+		int[][] res = new int[size][];
+		for (int v = 0; v < size; v++) {
+			int degree = list == null || v >= list.getSize() ? 0 : list.getOutDegree(v);
+			res[v] = new int[degree];
+			for (int k = 0; k < degree; k++) {
+				res[v][k] = list.getOutNeighbour(v, k);
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Checks if the snapshot belongs to the current version of a graph.
+	 * @param graph the graph
+	 * @param version the current version of the graph
+	 * @return true if the snapshot is up to date
+	 */
+	boolean represents(Graph graph, long version) {
+		return this.graph == graph && this.version == version;
+	}
+
+	/**
+	 * Gets the number of vertices of the copied graph.
+	 * @return the number of vertices
+	 */
+	int getSize() {
+		return names.length;
+	}
+
+	/**
+	 * Gets the indices of the vertices of the copied graph in a later version of a graph by their names.
+	 * @param snapshot the snapshot of the later version
+	 * @return the index in the later version of every vertex of this snapshot or -1 if the vertex was removed
+	 */
+	int[] getIndices(GraphSnapshot snapshot) {
+		int[] res = new int[names.length];
+		for (int v = 0; v < names.length; v++) {
+			Integer index = snapshot.indices.get(names[v]);
+			res[v] = index == null ? -1 : index;
+		}
+		return res;
+	}
+
+	/**
+	 * Finds the vertices of a later version of the graph, which were added or whose edges changed since this snapshot.
+	 * A vertex changed, if it gained or lost an outgoing edge (of any kind) or if a removed vertex pointed to it.
+	 * @param snapshot the snapshot of the later version
+	 * @return the indices of the changed vertices in the later version
+	 */
+	BitSet getChangedVertices(GraphSnapshot snapshot) {
+		int[] newIndices = this.getIndices(snapshot);
+		int[] oldIndices = snapshot.getIndices(this);
+		BitSet changed = new BitSet(snapshot.getSize());
+		for (int v = 0; v < snapshot.getSize(); v++) {
+			int old = oldIndices[v];
+			if (old < 0 || !sameNeighbours(neighbours[old], snapshot.neighbours[v], oldIndices)
+					|| !sameNeighbours(replicaNeighbours[old], snapshot.replicaNeighbours[v], oldIndices)) {
+				changed.set(v);
+			}
+		}
+		for (int old = 0; old < names.length; old++) {
+			if (newIndices[old] < 0) {
+				markNeighbours(neighbours[old], newIndices, changed);
+				markNeighbours(replicaNeighbours[old], newIndices, changed);
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Checks if a vertex has the same outgoing neighbours in two versions of the graph.
+	 * @param oldNeighbours the sorted indices of the neighbours in the earlier version
+	 * @param newNeighbours the indices of the neighbours in the later version
+	 * @param oldIndices the index in the earlier version of every vertex of the later version or -1 for an added vertex
+	 * @return true if the neighbours are the same vertices
+	 */
+	private static boolean sameNeighbours(int[] oldNeighbours, int[] newNeighbours, int[] oldIndices) {
+		if (oldNeighbours.length != newNeighbours.length) {
+			return false;
+		}
+		// the neighbours of a vertex are distinct, so the same number of matching neighbours means the same neighbours
+		for (int neighbour : newNeighbours) {
+			int old = oldIndices[neighbour];
+			if (old < 0 || Arrays.binarySearch(oldNeighbours, old) < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Marks the neighbours of a removed vertex, which are still part of the later version.
+	 * @param oldNeighbours the indices of the neighbours in the earlier version
+	 * @param newIndices the index in the later version of every vertex of the earlier version or -1 for a removed vertex
+	 * @param changed the set of changed vertices of the later version
+	 */
+	private static void markNeighbours(int[] oldNeighbours, int[] newIndices, BitSet changed) {
+		for (int neighbour : oldNeighbours) {
+			if (newIndices[neighbour] >= 0) {
+				changed.set(newIndices[neighbour]);
+			}
+		}
+	}
+}
@@ -2,8 +2,13 @@ package model;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import io.kubernetes.client.openapi.ApiException;
+import okhttp3.Call;
 
 /**
  * This class handles the connection of the application to the installed client-server infrastructure in the cluster to receive all connections between pods via a http request.
@@ -13,6 +18,47 @@ import io.kubernetes.client.openapi.ApiException;
  */
 class HttpConnector {
 
+	/**
+	 * The default time in milliseconds to wait for the installed infrastructure to answer.
+	 */
+	static final long DEFAULT_READINESS_TIMEOUT = 120000;
+
+	/**
+	 * The time in milliseconds between two requests to the server pod, while it does not answer yet.
+	 */
+	private static final long PROBE_INTERVAL = 500;
+
+	/**
+	 * The time in milliseconds to wait for the installed infrastructure to answer, before the installation is treated as failed.
+	 */
+	private long readinessTimeout = DEFAULT_READINESS_TIMEOUT;
+
+	/**
+	 * The default time in milliseconds to wait for the connections of the server pod.
+	 */
+	static final long DEFAULT_FETCH_TIMEOUT = 30000;
+
+	/**
+	 * The time in milliseconds to wait for the connections of the server pod, before the request is cancelled.
+	 */
+	private long fetchTimeout = DEFAULT_FETCH_TIMEOUT;
+
+	/**
+	 * Sets the time to wait for the installed infrastructure to answer, before the installation is treated as failed.
+	 * @param readinessTimeout the timeout in milliseconds
+	 */
+	void setReadinessTimeout(long readinessTimeout) {
+		this.readinessTimeout = readinessTimeout;
+	}
+
+	/**
+	 * Sets the time to wait for the connections of the server pod, before the request is cancelled.
+	 * @param fetchTimeout the timeout in milliseconds
+	 */
+	void setFetchTimeout(long fetchTimeout) {
+		this.fetchTimeout = fetchTimeout;
+	}
+
 	/**
 	 * Gets all connections of all pods in the cluster by calling a server pod, which receives all connections from pods to other pods by using conntrack on every node.
 	 * Afterwards the connections represented as ips are transformed to pod names.
@@ -24,11 +70,81 @@ class HttpConnector {
 	 * @throws InterruptedException thrown if a user interrupts the thread
 	 */
 	Map<String, String> getConnections(Map<String, String> pods, KubClient client, boolean install) throws ApiException, InterruptedException {
-		HttpConntrackCallback cb = new HttpConntrackCallback();
 		if (install)
-			Thread.sleep(30000); // time required to install the client-server infrastructure in the cluster
-		client.getApi().connectGetNamespacedServiceProxyWithPathAsync("collector-service", "detector", "print", null, cb);
-		return transformConnections(pods, cb.getConnections());
+			return this.getConnections(pods, this.awaitInfrastructure(client));
+		return this.getConnections(pods, this.fetchConnections(client));
+	}
+
+	/**
+	 * Gets all connections of all pods in the cluster by waiting for a fetch of the server pod started before.
+	 * Afterwards the connections represented as ips are transformed to pod names.
+	 * @param pods A map of pods which maps a combination of the pod ip (veth0) and the node name to the pod name.
+	 * @param fetch the started fetch of the connections (see fetchConnections)
+	 * @return A map which maps a pod name to another pod name to represent a connection between them.
+	 * @throws ApiException thrown if the connection to the server pod fails or times out
+	 * @throws InterruptedException thrown if a user interrupts the thread
+	 */
+	Map<String, String> getConnections(Map<String, String> pods, CompletableFuture<Map<String, String>> fetch) throws ApiException, InterruptedException {
+		try {
+			return transformConnections(pods, fetch.get());
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof ApiException) {
+				throw (ApiException) e.getCause();
+			} else if (e.getCause() instanceof TimeoutException) {
+				throw new ApiException("The request of the connections timed out after " + fetchTimeout + " milliseconds.");
+			} else {
+				throw new ApiException("The request of the connections failed: " + e.getCause());
+			}
+		} finally {
+			fetch.cancel(true);
+		}
+	}
+
+	/**
+	 * Starts an asynchronous request to the server pod to receive the connections of all nodes, so other calls can be done while waiting for the response.
+	 * The request is cancelled, if the returned future is cancelled or the fetch timeout is exceeded.
+	 * @param client The kubernetes client to connect to the cluster.
+	 * @return a future of a map of connections which maps a node name on all its connections represented as ips in a string
+	 * @throws ApiException thrown if the request to the server pod can't be created
+	 */
+	CompletableFuture<Map<String, String>> fetchConnections(KubClient client) throws ApiException {
+		HttpConntrackCallback cb = new HttpConntrackCallback();
+		Call call = client.getApi().connectGetNamespacedServiceProxyWithPathAsync("collector-service", KubDetectorRegistry.NAMESPACE, "print", null, cb);
+		CompletableFuture<Map<String, String>> fetch = cb.getConnections().orTimeout(fetchTimeout, TimeUnit.MILLISECONDS);
+		fetch.whenComplete((connections, e) -> {
+			if (e != null) {
+				call.cancel();
+			}
+		});
+		return fetch;
+	}
+
+	/**
+	 * Waits until the installed client-server infrastructure is rolled out and the server pod answers a request of the connections.
+	 * The first answer is already the result of the request, so it is returned instead of requesting the connections a second time.
+	 * A failed request before the deadline is expected while the server pod starts, so it is repeated.
+	 * @param client The kubernetes client to connect to the cluster.
+	 * @return a completed future of a map of connections which maps a node name on all its connections represented as ips in a string
+	 * @throws ApiException thrown if the infrastructure does not answer within the readiness timeout
+	 * @throws InterruptedException thrown if a user interrupts the thread
+	 */
+	private CompletableFuture<Map<String, String>> awaitInfrastructure(KubClient client) throws ApiException, InterruptedException {
+		long deadline = System.currentTimeMillis() + readinessTimeout;
+		KubDetectorRegistry registry = new KubDetectorRegistry(client);
+		registry.awaitRollout(deadline);
+		while (true) {
+			try {
+				String response = client.getApi().connectGetNamespacedServiceProxyWithPath("collector-service", KubDetectorRegistry.NAMESPACE, "print", null);
+				HttpConntrackCallback cb = new HttpConntrackCallback();
+				cb.onSuccess(response, 200, null);
+				return cb.getConnections();
+			} catch (ApiException e) {
+				if (System.currentTimeMillis() + PROBE_INTERVAL > deadline) {
+					throw new ApiException("The installation of the infrastructure timed out: The server pod does not answer. " + e.getMessage());
+				}
+				Thread.sleep(PROBE_INTERVAL);
+			}
+		}
 	}
 
 	/**
@@ -3,6 +3,10 @@ package model;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import io.kubernetes.client.openapi.ApiCallback;
 import io.kubernetes.client.openapi.ApiException;
@@ -13,17 +17,24 @@ import io.kubernetes.client.openapi.ApiException;
  *
  */
 public class HttpConntrackCallback implements ApiCallback<String> {
+
+	/**
+	 * The logger of the received connections, the connections of every node are logged on the debug level.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(HttpConntrackCallback.class);
 	
 	/**
-	 * Contains all connections as a map from node names to binded connections in a string.
+	 * Completes with all connections as a map from node names to binded connections in a string, as soon as the response is received.
+	 * The future hands the connections over from the http thread to the waiting thread.
 	 */
-	private Map<String, String> connections = new HashMap<>();
+	private CompletableFuture<Map<String, String>> connections = new CompletableFuture<>();
 
 	/**
-	 * Gets all connections as a map from node names to binded connections in a string.
-	 * @return a map of connections
+	 * Gets the future of all connections as a map from node names to binded connections in a string.
+	 * The future completes exceptionally with an ApiException, if the call fails.
+	 * @return the future of a map of connections
 	 */
-	public Map<String, String> getConnections() {
+	public CompletableFuture<Map<String, String>> getConnections() {
 		return connections;
 	}
 
@@ -34,15 +45,17 @@ public class HttpConntrackCallback implements ApiCallback<String> {
 
 	@Override
 	public void onFailure(ApiException e, int status, Map<String, List<String>> headers) {
-		e.printStackTrace();
+		connections.completeExceptionally(e);
 	}
 
 	@Override
 	public void onSuccess(String responseBody, int status, Map<String, List<String>> responseHeaders) {
 		// status check already done, no check for status > 300 || status < 200 required
 		
+		Map<String, String> connections = new HashMap<>();
 		if (responseBody == null) {
-			System.out.println("Warning: Response is empty! " + status);
+			LOGGER.warn("The response of the connections is empty, status {}.", status);
+			this.connections.complete(connections);
 			return;
 		}
 		String[] nodeConnections = responseBody.split(";");
@@ -52,7 +65,6 @@ public class HttpConntrackCallback implements ApiCallback<String> {
 				// TODO throw error
 			} else {
 				String nodeIP = nodeMap[0];
-				System.out.println(nodeIP);
 				StringBuilder destinationsBuilder = new StringBuilder();
 				destinationsBuilder.append(nodeMap[1]);
 				if (nodeMap.length > 2) {
@@ -60,10 +72,11 @@ public class HttpConntrackCallback implements ApiCallback<String> {
 						destinationsBuilder.append(nodeMap[k]);
 					}
 				}
-				System.out.println(destinationsBuilder.toString());
+				LOGGER.debug("Connections of the node {}: {}", nodeIP, destinationsBuilder);
 				connections.put(nodeIP, destinationsBuilder.toString());
 			}
 		}
+		this.connections.complete(connections);
 	}
 
 	@Override
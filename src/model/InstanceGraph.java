@@ -0,0 +1,237 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.List;
+
+import controller.GraphException;
+import controller.PatternType;
+
+/**
+ * This class represents a detected instance of a pattern as lightweight read only graph.
+ * The members are kept as arrays of the names and indices of the vertices of the input graph and the indices of their pattern roles,
+ * so an instance neither clones the vertices nor holds the input graph, which may change after the detection.
+ * The vertices are views on these arrays, which are created on access.
+ * @author Alexis T. Bernhard
+ *
+ */
+class InstanceGraph implements ReadableGraph {
+
+	/**
+	 * The type of pattern this instance represents.
+	 */
+	private PatternType pattern;
+
+	/**
+	 * The names of the members, the position of a member is its index in the edge list.
+	 */
+	private String[] names;
+
+	/**
+	 * The indices of the members in the adjacency matrix of the input graph.
+	 */
+	private int[] indices;
+
+	/**
+	 * The indices of the pattern roles of the members.
+	 */
+	private int[] roles;
+
+	/**
+	 * An array of role appearances to store how many members with a certain role are part of the instance.
+	 */
+	private int[] roleAppearances;
+
+	/**
+	 * The edges between the members.
+	 */
+	private AdjacencyList edges;
+
+	/**
+	 * This class represents a member of the instance as read only vertex.
+	 * @author Alexis T. Bernhard
+	 *
+	 */
+	private class InstanceVertex implements ReadableVertex {
+
+		/**
+		 * The position of the member in the instance.
+		 */
+		private int position;
+
+		/**
+		 * Initializes the view of a member.
+		 * @param position the position of the member in the instance
+		 */
+		InstanceVertex(int position) {
+			this.position = position;
+		}
+
+		@Override
+		public String getName() {
+			return names[position];
+		}
+
+		@Override
+		public int getIndex() {
+			return indices[position];
+		}
+
+		@Override
+		public String getRole() {
+			return pattern.getRoles()[roles[position]];
+		}
+	}
+
+	/**
+	 * Initializes an instance without any edges.
+	 * @param pattern the type of pattern this instance represents
+	 * @param names the names of the members
+	 * @param indices the indices of the members in the adjacency matrix of the input graph
+	 * @param roles the indices of the pattern roles of the members
+	 * @param roleAppearances the number of members of every pattern role
+	 */
+	InstanceGraph(PatternType pattern, String[] names, int[] indices, int[] roles, int[] roleAppearances) {
+		this.pattern = pattern;
+		this.names = names;
+		this.indices = indices;
+		this.roles = roles;
+		this.roleAppearances = roleAppearances;
+		edges = new AdjacencyList(names.length);
+	}
+
+	/**
+	 * Gets a copy of the instance for a later version of the input graph, in which the members have other indices.
+	 * The copy shares the names, roles and edges of the members with this instance.
+	 * @param indices the indices of the members in the adjacency matrix of the later version of the input graph
+	 * @return the copy of the instance
+	 */
+	InstanceGraph relocate(int[] indices) {
+		InstanceGraph instance = new InstanceGraph(pattern, names, indices, roles, roleAppearances);
+		instance.edges = edges;
+		return instance;
+	}
+
+	/**
+	 * Adds an edge between two members.
+	 * @param source the position of the source member
+	 * @param dest the position of the destination member
+	 * @throws GraphException thrown if a position is out of range or the edge points to itself
+	 */
+	void addEdge(int source, int dest) throws GraphException {
+		if (source < 0 || source >= names.length || dest < 0 || dest >= names.length || source == dest) {
+			throw new GraphException("The edge creation failed due to a badly defined input vertex index or a self pointing edge.");
+		}
+		edges.add(source, dest);
+	}
+
+	@Override
+	public List<? extends ReadableVertex> getVertices() {
+		return new AbstractList<ReadableVertex>() {
+
+			@Override
+			public ReadableVertex get(int index) {
+				if (index < 0 || index >= names.length) {
+					throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + names.length);
+				}
+				return new InstanceVertex(index);
+			}
+
+			@Override
+			public int size() {
+				return names.length;
+			}
+		};
+	}
+
+	@Override
+	public ReadableVertex getVertexByName(String name) {
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equals(name)) {
+				return new InstanceVertex(i);
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public ReadableVertex getVertexByIndex(int index) {
+		if (index < 0 || index >= names.length) {
+			return null;
+		}
+		return new InstanceVertex(index);
+	}
+
+	@Override
+	public double[][] getAdjacencyMatrix() {
+		return edges.toMatrix();
+	}
+
+	@Override
+	public int getEdgeCount() {
+		return edges.getEdgeCount();
+	}
+
+	@Override
+	public int getOutDegree(int vertex) {
+		return edges.getOutDegree(vertex);
+	}
+
+	@Override
+	public int getOutNeighbour(int vertex, int position) {
+		return edges.getOutNeighbour(vertex, position);
+	}
+
+	@Override
+	public int getInDegree(int vertex) {
+		return edges.getInDegree(vertex);
+	}
+
+	@Override
+	public int getInNeighbour(int vertex, int position) {
+		return edges.getInNeighbour(vertex, position);
+	}
+
+	@Override
+	public int getConnectionByIndex(int vertex1, int vertex2) {
+		if (vertex1 < 0 || vertex1 >= names.length || vertex2 < 0 || vertex2 >= names.length) {
+			return -1;
+		}
+		int result = 0;
+		if (edges.contains(vertex1, vertex2)) {
+			result++;
+		}
+		if (edges.contains(vertex2, vertex1)) {
+			result += 2;
+		}
+		return result;
+	}
+
+	@Override
+	public PatternType getPattern() {
+		return pattern;
+	}
+
+	@Override
+	public int[] getAllRoleAppearances() {
+		return roleAppearances;
+	}
+
+	@Override
+	public int getRoleAppearance(String role) {
+		int i = pattern.getRoleIndex(role);
+		if (i < 0) {
+			return -1;
+		} else {
+			return roleAppearances[i];
+		}
+	}
+
+	@Override
+	public int getRoleAppearance(int index) throws GraphException {
+		if (index >= 0 && index < roleAppearances.length) {
+			return roleAppearances[index];
+		} else {
+			throw new GraphException("The role of a vertex of an output graph does not exist.");
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package model;
+
+/**
+ * This class contains the statistics of a single run of the similarity iteration, which are filled by the similarity algorithm.
+ * @author Alexis T. Bernhard
+ *
+ */
+class IterationStatistics {
+
+	/**
+	 * The number of performed iterations.
+	 */
+	private int iterations;
+
+	/**
+	 * The number of extrapolation steps, which replaced the current scores.
+	 */
+	private int extrapolations;
+
+	/**
+	 * The largest change of a score between the last two compared iterations.
+	 */
+	private double residual = Double.NaN;
+
+	/**
+	 * This boolean indicates if the scores converged before the iteration limit was reached.
+	 */
+	private boolean converged;
+
+	/**
+	 * The duration of the run in nanoseconds.
+	 */
+	private long duration;
+
+	/**
+	 * The number of scored components of the system graph.
+	 */
+	private int components;
+
+	/**
+	 * This boolean indicates if the scores were continued from the start scores instead of ones.
+	 */
+	private boolean warmStart;
+
+	/**
+	 * Gets the number of performed iterations.
+	 * @return the number of iterations
+	 */
+	int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * Gets the number of extrapolation steps, which replaced the current scores.
+	 * @return the number of extrapolations
+	 */
+	int getExtrapolations() {
+		return extrapolations;
+	}
+
+	/**
+	 * Gets the largest change of a score between the last two compared iterations.
+	 * @return the residual or NaN if no iterations were compared
+	 */
+	double getResidual() {
+		return residual;
+	}
+
+	/**
+	 * Checks if the scores converged before the iteration limit was reached.
+	 * @return true if the scores converged
+	 */
+	boolean isConverged() {
+		return converged;
+	}
+
+	/**
+	 * Gets the duration of the run in nanoseconds.
+	 * @return the duration
+	 */
+	long getDuration() {
+		return duration;
+	}
+
+	/**
+	 * Gets the number of scored components of the system graph.
+	 * @return the number of components
+	 */
+	int getComponents() {
+		return components;
+	}
+
+	/**
+	 * Checks if the scores were continued from the start scores instead of ones.
+	 * @return true if the warm start was kept
+	 */
+	boolean isWarmStart() {
+		return warmStart;
+	}
+
+	/**
+	 * Sets if the scores were continued from the start scores instead of ones.
+	 * @param warmStart true if the warm start was kept
+	 */
+	void setWarmStart(boolean warmStart) {
+		this.warmStart = warmStart;
+	}
+
+	/**
+	 * Sets the result of the run.
+	 * @param iterations the number of performed iterations
+	 * @param extrapolations the number of extrapolation steps
+	 * @param residual the largest change of a score between the last two compared iterations
+	 * @param converged true if the scores converged
+	 * @param duration the duration of the run in nanoseconds
+	 * @param components the number of scored components of the system graph
+	 */
+	void setResult(int iterations, int extrapolations, double residual, boolean converged, long duration, int components) {
+		this.iterations = iterations;
+		this.extrapolations = extrapolations;
+		this.residual = residual;
+		this.converged = converged;
+		this.duration = duration;
+		this.components = components;
+	}
+
+	@Override
+	public String toString() {
+		return components + (components == 1 ? " component, " : " components, ") + iterations + " iterations, " + extrapolations + " extrapolations, residual " + residual
+				+ (converged ? ", converged" : ", not converged") + (warmStart ? " from the start scores" : "") + " in " + duration / 1000000 + " ms";
+	}
+}
@@ -3,9 +3,21 @@ import io.kubernetes.client.util.Config;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import controller.InputType;
 import io.kubernetes.client.openapi.ApiClient;
@@ -22,6 +34,94 @@ import io.kubernetes.client.openapi.models.*;
  */
 class KubClient {
 
+	/**
+	 * The namespace of all pods and services, which are transformed into the graph.
+	 */
+	static final String NAMESPACE = "default";
+
+	/**
+	 * The services of the kubernetes infrastructure, whose endpoints are no part of the graph.
+	 */
+	static final Set<String> IGNORED_SERVICES = new HashSet<>(Arrays.asList("kubernetes", "kube-dns", "dashboard-metrics-scraper", "kubernetes-dashboard"));
+
+	/**
+	 * This interface represents a blocking call to the kubernetes client.
+	 * @param <T> the type of the result of the call
+	 */
+	private interface ApiCall<T> {
+
+		/**
+		 * Performs the call to the kubernetes client.
+		 * @return the result of the call
+		 * @throws ApiException thrown if the call to the kubernetes client fails
+		 */
+		T call() throws ApiException;
+	}
+
+	/**
+	 * This interface represents a list call to the kubernetes client, which receives a single page of a list.
+	 * @param <L> the type of the received list
+	 */
+	private interface PageCall<L> {
+
+		/**
+		 * Receives a page of the list.
+		 * @param cont the continue token of the previous page or null for the first page
+		 * @return the page of the list
+		 * @throws ApiException thrown if the list call to the kubernetes client fails
+		 */
+		L list(String cont) throws ApiException;
+	}
+
+	/**
+	 * The default maximal number of resources received by a single list call.
+	 */
+	static final int DEFAULT_PAGE_SIZE = 500;
+
+	/**
+	 * The maximal number of resources received by a single list call, larger lists are received in several pages.
+	 */
+	private int pageSize = DEFAULT_PAGE_SIZE;
+
+	/**
+	 * The field selector of the pods transformed into the graph (e.g. status.phase=Running) or null for all pods.
+	 */
+	private String podFieldSelector;
+
+	/**
+	 * The label selector of the pods transformed into the graph (e.g. app=shop) or null for all pods.
+	 */
+	private String podLabelSelector;
+
+	/**
+	 * The label selector of the services transformed into the graph or null for all services.
+	 */
+	private String serviceLabelSelector;
+
+	/**
+	 * The namespaces, whose pods and services are transformed into the graph, if neither all nor label selected namespaces are transformed.
+	 */
+	private List<String> namespaces = Collections.singletonList(NAMESPACE);
+
+	/**
+	 * True if the pods and services of all namespaces are transformed into the graph.
+	 */
+	private boolean allNamespaces;
+
+	/**
+	 * The label selector of the namespaces, whose pods and services are transformed into the graph, or null if the namespaces are set explicitly.
+	 */
+	private String namespaceLabelSelector;
+
+	/**
+	 * The threads performing the list calls to the kubernetes client concurrently, idle threads are stopped after a minute.
+	 */
+	private final ExecutorService listThreads = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "kubernetes-list");
+		thread.setDaemon(true);
+		return thread;
+	});
+
 	/**
 	 * An array of strings which contain data to authenticate to the kubernetes cluster for the kubernetes client.
 	 */
@@ -89,6 +189,56 @@ class KubClient {
 		this.authdata = authdata;
 	}
 
+	/**
+	 * Gets the field selector of the pods transformed into the graph.
+	 * @return the field selector or null for all pods
+	 */
+	String getPodFieldSelector() {
+		return podFieldSelector;
+	}
+
+	/**
+	 * Gets the label selector of the pods transformed into the graph.
+	 * @return the label selector or null for all pods
+	 */
+	String getPodLabelSelector() {
+		return podLabelSelector;
+	}
+
+	/**
+	 * Gets the label selector of the services transformed into the graph.
+	 * @return the label selector or null for all services
+	 */
+	String getServiceLabelSelector() {
+		return serviceLabelSelector;
+	}
+
+	/**
+	 * Sets the selectors of the pods transformed into the graph, so the kubernetes client only sends the required pods.
+	 * @param fieldSelector the field selector (e.g. status.phase=Running) or null for all pods
+	 * @param labelSelector the label selector (e.g. app=shop) or null for all pods
+	 */
+	void setPodSelectors(String fieldSelector, String labelSelector) {
+		this.podFieldSelector = fieldSelector;
+		this.podLabelSelector = labelSelector;
+	}
+
+	/**
+	 * Sets the label selector of the services transformed into the graph, so the kubernetes client only sends the required services.
+	 * @param labelSelector the label selector or null for all services
+	 */
+	void setServiceLabelSelector(String labelSelector) {
+		this.serviceLabelSelector = labelSelector;
+	}
+
+	/**
+	 * Sets the maximal number of resources received by a single list call.
+	 * @param pageSize the page size, at least one
+	 */
+	void setPageSize(int pageSize) {
+		this.pageSize = pageSize;
+	}
+
 	/**
 	 * Sets the method to authenticate to the kubernetes cluster to the input method
 	 * @param authmethod the authentication method to set
@@ -106,13 +256,47 @@ class KubClient {
 		if (!pods.isEmpty()) {
 			pods.clear();
 		}
-		V1PodList podList = api.listNamespacedPod("default", null, null, null, null, null, null, null, null, null);
-		for (V1Pod pod : podList.getItems()) {
-			pods.put(pod.getStatus().getPodIP() + "#" + pod.getSpec().getNodeName(), pod.getMetadata().getName());
-		}
+		pods.putAll(this.getPodList(NAMESPACE, false));
 		return pods;
 	}
 
+	/**
+	 * Gets infos of all pods of a namespace.
+	 * @param namespace the namespace of the pods
+	 * @param qualified true if the pod names are qualified by the namespace (see getVertexName)
+	 * @return A map containing information about pods of the namespace, it maps a pod id (made out of the pod ip (veth0) and the node name) to the pod name.
+	 * @throws ApiException thrown if the list call to the kubernetes client fails
+	 */
+	Map<String, String> getPodList(String namespace, boolean qualified) throws ApiException {
+		Map<String, String> namespacePods = new HashMap<>();
+		this.listPages(cont -> api.listNamespacedPod(namespace, null, null, cont, podFieldSelector, podLabelSelector, pageSize, null, null, null),
+				V1PodList::getItems, V1PodList::getMetadata, pod -> namespacePods.put(getPodId(pod), getVertexName(namespace, pod.getMetadata().getName(), qualified)));
+		return namespacePods;
+	}
+
+	/**
+	 * Gets the id of a pod, which identifies the pod in the connections of the conntrack infrastructure.
+	 * @param pod the pod to identify
+	 * @return the pod id made out of the pod ip (veth0) and the node name
+	 */
+	static String getPodId(V1Pod pod) {
+		return pod.getStatus().getPodIP() + "#" + pod.getSpec().getNodeName();
+	}
+
+	/**
+	 * Gets the name of the vertex of a pod or a service in the graph.
+	 * @param namespace the namespace of the pod or service
+	 * @param name the name of the pod or service
+	 * @param qualified true if the graph contains several namespaces, so the names must be qualified by the namespace
+	 * @return the name qualified as namespace/name or the plain name
+	 */
+	static String getVertexName(String namespace, String name, boolean qualified) {
+		if (qualified) {
+			return namespace + "/" + name;
+		}
+		return name;
+	}
+
 	/**
 	 * Gets infos of all services of the default namespace.
 	 * @return A list of service of the kubernetes cluster.
@@ -122,16 +306,30 @@ class KubClient {
 		if (!services.isEmpty()) {
 			services.clear();
 		}
-		V1ServiceList serviceList = api.listNamespacedService("default", null, null, null, null, null, null, null, null, null);
-		for (V1Service service : serviceList.getItems()) {
-			if (!service.getMetadata().getName().equals("kubernetes"))
-				services.add(service.getMetadata().getName());
-		}
+		services.addAll(this.getServiceList(NAMESPACE, false));
 		return services;
 	}
 
 	/**
-	 * Gets a list of endpoints in the kubernetes cluster. An endpoint is the connection between a service and a pod.
+	 * Gets infos of all services of a namespace.
+	 * @param namespace the namespace of the services
+	 * @param qualified true if the service names are qualified by the namespace (see getVertexName)
+	 * @return A list of services of the namespace.
+	 * @throws ApiException thrown if the list call to the kubernetes client fails
+	 */
+	List<String> getServiceList(String namespace, boolean qualified) throws ApiException {
+		List<String> namespaceServices = new ArrayList<>();
+		this.listPages(cont -> api.listNamespacedService(namespace, null, null, cont, null, serviceLabelSelector, pageSize, null, null, null),
+				V1ServiceList::getItems, V1ServiceList::getMetadata, service -> {
+					if (!service.getMetadata().getName().equals("kubernetes"))
+						namespaceServices.add(getVertexName(namespace, service.getMetadata().getName(), qualified));
+				});
+		return namespaceServices;
+	}
+
+	/**
+	 * Gets a list of endpoints in the default namespace. An endpoint is the connection between a service and a pod.
+	 * The service list must be received before (see getServiceList()).
 	 * @return the list of endpoints
 	 * @throws ApiException thrown if the list call to the kubernetes client fails
 	 */
@@ -139,35 +337,207 @@ class KubClient {
 		if (!ends.isEmpty()) {
 			ends.clear();
 		}
-		V1EndpointsList endpointList = api.listEndpointsForAllNamespaces(null, null, null, null, null, null, null, null, null);
-
-		for (V1Endpoints end : endpointList.getItems()) {
-
-			// merges services and endpoints and filters the kubernetes service
-			boolean found = false; // indicates that an endpoint is a service
-			for (String service : services) {
-				if (service.equals(end.getMetadata().getName()) &&
-						!service.equals("kubernetes") &&
-						!service.equals("kube-dns") &&
-						!service.equals("dashboard-metrics-scraper") &&
-						!service.equals("kubernetes-dashboard"))
-					found = true;
-			}
+		ends.addAll(getEndpointList(this.getEndpointList(NAMESPACE, false), services));
+		return ends;
+	}
 
-			if (found && end.getSubsets() != null) {
-				for (V1EndpointSubset subset : end.getSubsets()) {
-					if (subset != null) {
-						for (V1EndpointAddress address : subset.getAddresses()) {
+	/**
+	 * Gets a list of endpoints in a namespace without the endpoints of the kubernetes infrastructure. Every endpoint is reduced to the names of its service and its pod.
+	 * @param namespace the namespace of the endpoints
+	 * @param qualified true if the service and pod names are qualified by the namespace (see getVertexName)
+	 * @return the list of endpoints of the namespace
+	 * @throws ApiException thrown if the list call to the kubernetes client fails
+	 */
+	List<List<String>> getEndpointList(String namespace, boolean qualified) throws ApiException {
+		List<List<String>> endpoints = new ArrayList<>();
+		this.listPages(cont -> api.listNamespacedEndpoints(namespace, null, null, cont, null, null, pageSize, null, null, null),
+				V1EndpointsList::getItems, V1EndpointsList::getMetadata, end -> {
+					if (!IGNORED_SERVICES.contains(end.getMetadata().getName())) {
+						for (String target : getEndpointTargets(end)) {
 							List<String> endpoint = new ArrayList<>();
-							endpoint.add(end.getMetadata().getName());
-							endpoint.add(address.getTargetRef().getName());
-							ends.add(endpoint);
+							endpoint.add(getVertexName(namespace, end.getMetadata().getName(), qualified));
+							endpoint.add(getVertexName(namespace, target, qualified));
+							endpoints.add(endpoint);
+						}
+					}
+				});
+		return endpoints;
+	}
+
+	/**
+	 * Gets all endpoints of a list of endpoints, which refer to one of the listed services.
+	 * @param endpointList the listed endpoints (see getEndpointList(String, boolean))
+	 * @param services the listed services
+	 * @return the list of endpoints
+	 */
+	static List<List<String>> getEndpointList(List<List<String>> endpointList, Collection<String> services) {
+		Set<String> serviceSet = new HashSet<>(services);
+		List<List<String>> endpoints = new ArrayList<>();
+		for (List<String> endpoint : endpointList) {
+			// merges services and endpoints
+			if (serviceSet.contains(endpoint.get(0))) {
+				endpoints.add(endpoint);
+			}
+		}
+		return endpoints;
+	}
+
+	/**
+	 * Gets the namespaces of the kubernetes cluster, whose pods and services are transformed into the graph.
+	 * @return the explicitly set namespaces, all namespaces or the namespaces matching the namespace label selector
+	 * @throws ApiException thrown if the list call to the kubernetes client fails
+	 */
+	List<String> getNamespaces() throws ApiException {
+		if (!allNamespaces && namespaceLabelSelector == null) {
+			return new ArrayList<>(namespaces);
+		}
+		List<String> selected = new ArrayList<>();
+		String labelSelector = allNamespaces ? null : namespaceLabelSelector;
+		this.listPages(cont -> api.listNamespace(null, null, cont, null, labelSelector, pageSize, null, null, null),
+				V1NamespaceList::getItems, V1NamespaceList::getMetadata, namespace -> selected.add(namespace.getMetadata().getName()));
+		return selected;
+	}
+
+	/**
+	 * Sets the namespaces, whose pods and services are transformed into the graph, the default is the default namespace.
+	 * @param namespaces the names of the namespaces
+	 */
+	void setNamespaces(List<String> namespaces) {
+		this.namespaces = new ArrayList<>(namespaces);
+		this.allNamespaces = false;
+		this.namespaceLabelSelector = null;
+	}
+
+	/**
+	 * Transforms the pods and services of all namespaces of the cluster into the graph.
+	 */
+	void setAllNamespaces() {
+		this.allNamespaces = true;
+		this.namespaceLabelSelector = null;
+	}
+
+	/**
+	 * Transforms the pods and services of all namespaces matching a label selector into the graph.
+	 * @param labelSelector the label selector of the namespaces (e.g. team=shop)
+	 */
+	void setNamespaceLabelSelector(String labelSelector) {
+		this.namespaceLabelSelector = labelSelector;
+		this.allNamespaces = false;
+	}
+
+	/**
+	 * Receives a list of the kubernetes client page by page and passes every resource to a consumer.
+	 * Only a single page of resources is kept in memory, since every page is released after its resources are consumed.
+	 * @param <L> the type of the received list
+	 * @param <T> the type of the listed resources
+	 * @param call the list call to receive a single page
+	 * @param items the function to get the resources of a page
+	 * @param meta the function to get the meta data containing the continue token of a page
+	 * @param consumer the consumer of all resources
+	 * @throws ApiException thrown if the list call to the kubernetes client fails
+	 */
+	private <L, T> void listPages(PageCall<L> call, Function<L, List<T>> items, Function<L, V1ListMeta> meta, Consumer<T> consumer) throws ApiException {
+		String cont = null;
+		do {
+			L page = call.list(cont);
+			for (T item : items.apply(page)) {
+				consumer.accept(item);
+			}
+			cont = null;
+			if (meta.apply(page) != null) {
+				cont = meta.apply(page).getContinue();
+			}
+		} while (cont != null && !cont.isEmpty());
+	}
+
+	/**
+	 * Gets infos of all pods of a namespace without blocking the calling thread.
+	 * @param namespace the namespace of the pods
+	 * @param qualified true if the pod names are qualified by the namespace
+	 * @return the future of the pod map (see getPodList(String, boolean))
+	 */
+	CompletableFuture<Map<String, String>> getPodListAsync(String namespace, boolean qualified) {
+		return this.callAsync(() -> this.getPodList(namespace, qualified));
+	}
+
+	/**
+	 * Gets infos of all services of a namespace without blocking the calling thread.
+	 * @param namespace the namespace of the services
+	 * @param qualified true if the service names are qualified by the namespace
+	 * @return the future of the service list (see getServiceList(String, boolean))
+	 */
+	CompletableFuture<List<String>> getServiceListAsync(String namespace, boolean qualified) {
+		return this.callAsync(() -> this.getServiceList(namespace, qualified));
+	}
+
+	/**
+	 * Gets the endpoints of a namespace without blocking the calling thread.
+	 * The endpoints are filtered after the services are received (see getEndpointList(List, Collection)).
+	 * @param namespace the namespace of the endpoints
+	 * @param qualified true if the service and pod names are qualified by the namespace
+	 * @return the future of the endpoints of the namespace
+	 */
+	CompletableFuture<List<List<String>>> getEndpointListAsync(String namespace, boolean qualified) {
+		return this.callAsync(() -> this.getEndpointList(namespace, qualified));
+	}
+
+	/**
+	 * Waits for the result of a call to the kubernetes client, which was started without blocking.
+	 * @param <T> the type of the result of the call
+	 * @param future the future of the call
+	 * @return the result of the call
+	 * @throws ApiException thrown if the call to the kubernetes client fails
+	 * @throws InterruptedException thrown if a user interrupts the thread
+	 */
+	static <T> T await(CompletableFuture<T> future) throws ApiException, InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof ApiException) {
+				throw (ApiException) e.getCause();
+			} else if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else {
+				throw new ApiException("The call to the kubernetes client failed: " + e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * Performs a call to the kubernetes client by one of the list threads.
+	 * @param <T> the type of the result of the call
+	 * @param call the call to perform
+	 * @return the future of the result, which completes exceptionally with the ApiException of a failed call
+	 */
+	private <T> CompletableFuture<T> callAsync(ApiCall<T> call) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return call.call();
+			} catch (ApiException e) {
+				throw new CompletionException(e);
+			}
+		}, listThreads);
+	}
+
+	/**
+	 * Gets the names of all pods an endpoint of a service refers to.
+	 * @param end the endpoint of the service
+	 * @return the list of pod names
+	 */
+	static List<String> getEndpointTargets(V1Endpoints end) {
+		List<String> targets = new ArrayList<>();
+		if (end.getSubsets() != null) {
+			for (V1EndpointSubset subset : end.getSubsets()) {
+				if (subset != null && subset.getAddresses() != null) {
+					for (V1EndpointAddress address : subset.getAddresses()) {
+						if (address.getTargetRef() != null) {
+							targets.add(address.getTargetRef().getName());
 						}
 					}
 				}
 			}
 		}
-		return ends;
+		return targets;
 	}
 
 	/**
@@ -176,14 +546,7 @@ class KubClient {
 	 * @throws ApiException thrown if the list call to the kubernetes client fails.
 	 */
 	void start() throws IOException, ApiException {
-		ApiClient client;
-		switch(authmethod) {
-		case CONFIG: client = Config.fromConfig(authdata[0]); break;
-		case URL: client = Config.fromUrl(authdata[0], Boolean.getBoolean(authdata[1])); break;
-		case TOKEN: client = Config.fromToken(authdata[0], authdata[1]); break;
-		case USERPASSWORD: client = Config.fromUserPassword(authdata[0], authdata[1], authdata[2], Boolean.getBoolean(authdata[3])); break;
-		default: throw new IOException();
-		}
+		ApiClient client = this.createApiClient();
 
 		// set the global default api-client to the in-cluster one from above
 		Configuration.setDefaultApiClient(client);
@@ -197,4 +560,21 @@ class KubClient {
 
 		client.setDebugging(true);
 	}
+
+	/**
+	 * Creates a new client of the official kubernetes java client with the authentication method and data.
+	 * @return the new api client
+	 * @throws IOException thrown if no authentication method and data is inserted.
+	 */
+	ApiClient createApiClient() throws IOException {
+		ApiClient client;
+		switch(authmethod) {
+		case CONFIG: client = Config.fromConfig(authdata[0]); break;
+		case URL: client = Config.fromUrl(authdata[0], Boolean.getBoolean(authdata[1])); break;
+		case TOKEN: client = Config.fromToken(authdata[0], authdata[1]); break;
+		case USERPASSWORD: client = Config.fromUserPassword(authdata[0], authdata[1], authdata[2], Boolean.getBoolean(authdata[3])); break;
+		default: throw new IOException();
+		}
+		return client;
+	}
 }
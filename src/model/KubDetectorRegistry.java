@@ -15,6 +15,7 @@ import io.kubernetes.client.openapi.models.V1ContainerPort;
 import io.kubernetes.client.openapi.models.V1DaemonSet;
 import io.kubernetes.client.openapi.models.V1DaemonSetList;
 import io.kubernetes.client.openapi.models.V1DaemonSetSpec;
+import io.kubernetes.client.openapi.models.V1DaemonSetStatus;
 import io.kubernetes.client.openapi.models.V1DaemonSetUpdateStrategy;
 import io.kubernetes.client.openapi.models.V1LabelSelector;
 import io.kubernetes.client.openapi.models.V1LocalObjectReference;
@@ -32,6 +33,7 @@ import io.kubernetes.client.openapi.models.V1ServiceList;
 import io.kubernetes.client.openapi.models.V1Deployment;
 import io.kubernetes.client.openapi.models.V1DeploymentList;
 import io.kubernetes.client.openapi.models.V1DeploymentSpec;
+import io.kubernetes.client.openapi.models.V1DeploymentStatus;
 import io.kubernetes.client.openapi.models.V1EmptyDirVolumeSource;
 import io.kubernetes.client.openapi.models.V1EnvVar;
 import io.kubernetes.client.openapi.models.V1EnvVarSource;
@@ -81,6 +83,11 @@ class KubDetectorRegistry {
 	 * The namespace where all new pods/ services and deployments are added. A way to get solely all elements involved of detection.
 	 */
 	static final String NAMESPACE = "detector";
+
+	/**
+	 * The time in milliseconds between two checks of the rollout status of the infrastructure.
+	 */
+	private static final long ROLLOUT_INTERVAL = 1000;
 	
 	/**
 	 * The application api used for registration 
@@ -116,6 +123,82 @@ class KubDetectorRegistry {
 		this.createDaemonSet();
 	}
 
+	/**
+	 * Waits until the server deployment and the client daemonset are rolled out, so the server pod and a client pod on every node are available.
+	 * The available counts of kubernetes already include the minReadySeconds of the daemonset, so no fixed waiting time is required.
+	 * A failed status call (e.g. a conflict or a server error during the rollout) is treated as not rolled out yet and repeated until the deadline.
+	 * @param deadline the time in milliseconds (see System.currentTimeMillis()) until the infrastructure must be rolled out
+	 * @throws ApiException thrown if the infrastructure is not rolled out before the deadline, with the last failed status call as cause
+	 * @throws InterruptedException thrown if a user interrupts the thread
+	 */
+	void awaitRollout(long deadline) throws ApiException, InterruptedException {
+		ApiException failure = null;
+		while (true) {
+			try {
+				if (this.isServerAvailable() && this.isDaemonSetAvailable()) {
+					return;
+				}
+				failure = null;
+			} catch (ApiException e) {
+				failure = e;
+			}
+			if (System.currentTimeMillis() + ROLLOUT_INTERVAL > deadline) {
+				String message = "The installation of the infrastructure timed out: The deployment " + SERVER_DEPLOYMENT_NAME + " or the daemonset " + DAEMONSET_NAME + " is not available.";
+				if (failure == null) {
+					throw new ApiException(message);
+				}
+				throw new ApiException(message + " The last status call failed: " + failure.getMessage(), failure, failure.getCode(), failure.getResponseHeaders(), failure.getResponseBody());
+			}
+			Thread.sleep(ROLLOUT_INTERVAL);
+		}
+	}
+
+	/**
+	 * Checks if the latest version of the server deployment is rolled out and all its replicas are available.
+	 * @return true if the server deployment is available
+	 * @throws ApiException thrown if the status call to the kubernetes client fails
+	 */
+	private boolean isServerAvailable() throws ApiException {
+		V1Deployment deployment = appApi.readNamespacedDeploymentStatus(SERVER_DEPLOYMENT_NAME, NAMESPACE, null);
+		V1DeploymentStatus status = deployment.getStatus();
+		if (status == null || status.getObservedGeneration() == null || status.getObservedGeneration() < deployment.getMetadata().getGeneration()) {
+			return false;
+		}
+		int replicas = 1;
+		if (deployment.getSpec().getReplicas() != null) {
+			replicas = deployment.getSpec().getReplicas();
+		}
+		return count(status.getUpdatedReplicas()) >= replicas && count(status.getReadyReplicas()) >= replicas && count(status.getAvailableReplicas()) >= replicas;
+	}
+
+	/**
+	 * Checks if the latest version of the client daemonset is rolled out and a client pod is available on every node.
+	 * A client pod is available, if it is ready for at least the minReadySeconds of the daemonset.
+	 * @return true if the client daemonset is available
+	 * @throws ApiException thrown if the status call to the kubernetes client fails
+	 */
+	private boolean isDaemonSetAvailable() throws ApiException {
+		V1DaemonSet daemonset = appApi.readNamespacedDaemonSetStatus(DAEMONSET_NAME, NAMESPACE, null);
+		V1DaemonSetStatus status = daemonset.getStatus();
+		if (status == null || status.getObservedGeneration() == null || status.getObservedGeneration() < daemonset.getMetadata().getGeneration()) {
+			return false;
+		}
+		int desired = count(status.getDesiredNumberScheduled());
+		return desired > 0 && count(status.getUpdatedNumberScheduled()) >= desired && count(status.getNumberReady()) >= desired && count(status.getNumberAvailable()) >= desired;
+	}
+
+	/**
+	 * Gets a count of a rollout status, which is not set by kubernetes if it is zero.
+	 * @param count the count of the status
+	 * @return the count or zero if the count is not set
+	 */
+	private static int count(Integer count) {
+		if (count == null) {
+			return 0;
+		}
+		return count;
+	}
+
 	/**
 	 * Creates the namespace where all new pods/ services and deployments are added. A way to get solely all elements involved of detection, if this namespace doesn't exist.
 	 * @throws ApiException thrown if a creation call to the kubernetes client fails
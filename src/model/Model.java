@@ -1,11 +1,16 @@
 package model;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import controller.GraphException;
 import controller.InputType;
+import controller.SelectionMode;
 import io.kubernetes.client.openapi.ApiException;
 
 /**
@@ -55,6 +60,16 @@ public class Model {
 	 */
 	private PatternDetector detector;
 
+	/**
+	 * The bounded pool of threads, which detects the patterns of the pattern list concurrently.
+	 */
+	private ForkJoinPool detectionPool;
+
+	/**
+	 * The instance of the cluster watcher class, which keeps the graph up to date with the kubernetes cluster between two reruns, null before the first rerun.
+	 */
+	private ClusterWatcher watcher;
+
 	/**
 	 * Gets the unique instance of the kubernetes client, which provides an entrance to the official kubernetes client.
 	 * @return the kubernetes client
@@ -73,10 +88,161 @@ public class Model {
 		graph = new Graph();
 		connector = new HttpConnector();
 		detector = new PatternDetector();
+		detectionPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
 
 		patternList = new ArrayList<>();
 	}
 
+	/**
+	 * Sets the number of threads used to detect the patterns concurrently, the default is the number of available processors.
+	 * @param threads the number of threads, at least one
+	 */
+	public void setDetectionThreads(int threads) {
+		if (threads > 0 && threads != detectionPool.getParallelism()) {
+			detectionPool.shutdown();
+			detectionPool = new ForkJoinPool(threads);
+		}
+	}
+
+	/**
+	 * Sets the time to wait for the installed infrastructure of the cluster to answer, the default is 120 seconds.
+	 * @param seconds the timeout in seconds, at least one
+	 */
+	public void setReadinessTimeout(long seconds) {
+		if (seconds > 0) {
+			connector.setReadinessTimeout(seconds * 1000);
+		}
+	}
+
+	/**
+	 * Sets the selectors of the pods and services transformed into the graph, so only the required resources are received from the cluster.
+	 * Reruns keep using the selectors, which were set when the cluster watcher was started on the first rerun.
+	 * @param podFieldSelector the field selector of the pods (e.g. status.phase=Running) or null for all pods
+	 * @param podLabelSelector the label selector of the pods (e.g. app=shop) or null for all pods
+	 * @param serviceLabelSelector the label selector of the services or null for all services
+	 */
+	public void setSelectors(String podFieldSelector, String podLabelSelector, String serviceLabelSelector) {
+		client.setPodSelectors(podFieldSelector, podLabelSelector);
+		client.setServiceLabelSelector(serviceLabelSelector);
+	}
+
+	/**
+	 * Sets the maximal number of resources received by a single list call to the cluster, the default is 500.
+	 * @param pageSize the page size, at least one
+	 */
+	public void setPageSize(int pageSize) {
+		if (pageSize > 0) {
+			client.setPageSize(pageSize);
+		}
+	}
+
+	/**
+	 * Sets the namespaces of the cluster, whose pods and services are transformed into the graph, the default is the default namespace.
+	 * The vertex names are qualified by their namespace (namespace/name), if more than a single namespace is transformed.
+	 * @param namespaces the names of the namespaces
+	 */
+	public void setNamespaces(List<String> namespaces) {
+		client.setNamespaces(namespaces);
+	}
+
+	/**
+	 * Transforms the pods and services of all namespaces of the cluster into the graph.
+	 */
+	public void setAllNamespaces() {
+		client.setAllNamespaces();
+	}
+
+	/**
+	 * Transforms the pods and services of all namespaces matching a label selector into the graph.
+	 * @param labelSelector the label selector of the namespaces (e.g. team=shop)
+	 */
+	public void setNamespaceSelector(String labelSelector) {
+		client.setNamespaceLabelSelector(labelSelector);
+	}
+
+	/**
+	 * Sets the number of namespaces, which are transformed concurrently, the default is four.
+	 * @param threads the number of threads, at least one
+	 */
+	public void setNamespaceThreads(int threads) {
+		if (threads > 0) {
+			trans.setNamespaceThreads(threads);
+		}
+	}
+
+	/**
+	 * Sets the limits of the similarity iteration, the defaults are 1000 iterations and a tolerance of 0.001.
+	 * The extrapolation of the scores reduces the number of iterations, but may change the scores slightly within the tolerance.
+	 * @param maxIterations the number of iterations, after which the iteration stops without convergence, at least two
+	 * @param tolerance the largest change of a score between two compared iterations, below which the scores are converged, greater than zero
+	 * @param extrapolation true to extrapolate the scores
+	 */
+	public void setSimilarityIteration(int maxIterations, double tolerance, boolean extrapolation) {
+		if (maxIterations >= 2 && tolerance > 0) {
+			detector.getAlgorithm().setMaxIterations(maxIterations);
+			detector.getAlgorithm().setTolerance(tolerance);
+			detector.getAlgorithm().setExtrapolation(extrapolation);
+		}
+	}
+
+	/**
+	 * Sets if the similarity iteration of a pattern starts from the converged scores of its previous detection (warm start),
+	 * which are mapped onto the current vertices by their names. Reruns on an unchanged cluster take just two iterations.
+	 * The iteration converges to a limit, which depends on its start, so if the first iterations move the previous scores by more than the tolerance,
+	 * the scores are calculated from ones again.
+	 * A kept warm start keeps the previous scores of a start from ones, which are exactly the scores of a start from ones on an unchanged cluster,
+	 * so the scores don't drift over several reruns.
+	 * @param warmStart true to start from the previous scores, false to start from ones and drop the kept scores
+	 */
+	public void setWarmStart(boolean warmStart) {
+		detector.setWarmStart(warmStart);
+	}
+
+	/**
+	 * Sets if the patterns are only detected again around the vertices, which were added or whose edges changed since the previous detection.
+	 * The instances far away from a change are kept, which makes repeated detections on a large cluster with few changes cheap.
+	 * The similarity scores are calculated like a full detection, which starts from ones unless the warm start is enabled (see setWarmStart),
+	 * but the kept instances can differ from a full detection. After ten incremental detections of a pattern the next detection is a full detection
+	 * again, as is every detection, whose changes affect more than a quarter of the vertices, so the differences don't add up over many detections.
+	 * @param incremental true to detect the patterns incrementally, false to detect them on the whole graph and drop the kept detections
+	 */
+	public void setIncrementalDetection(boolean incremental) {
+		detector.setIncremental(incremental);
+	}
+
+	/**
+	 * Sets the mode to select the members of the patterns out of the similarity scores, the default selects every member reaching a fixed threshold.
+	 * @param mode the selection mode
+	 * @param parameter the parameter of the mode: the number of members of a role (top k), the fraction of the highest score of a role (relative)
+	 * 			or the number of standard deviations above the mean score of a role (adaptive), where a negative number selects scores below the mean as well
+	 * @throws IllegalArgumentException thrown if the mode is null, the number of members is less than one, the fraction is not between 0 and 1
+	 * 			or the number of standard deviations is not finite
+	 */
+	public void setCandidateSelection(SelectionMode mode, double parameter) {
+		if (mode == null) {
+			throw new IllegalArgumentException("The selection mode must not be null.");
+		} else if (mode == SelectionMode.TOP_K && !(parameter >= 1)) {
+			throw new IllegalArgumentException("The top k selection requires at least one member per role: " + parameter);
+		} else if (mode == SelectionMode.RELATIVE && !(parameter >= 0 && parameter <= 1)) {
+			throw new IllegalArgumentException("The relative selection requires a fraction between 0 and 1: " + parameter);
+		} else if (mode == SelectionMode.ADAPTIVE && !Double.isFinite(parameter)) {
+			throw new IllegalArgumentException("The adaptive selection requires a finite number of standard deviations: " + parameter);
+		}
+		detector.setSelector(new CandidateSelector(mode, parameter));
+	}
+
+	/**
+	 * Sets the directory to write the similarity scores of every detection to as csv files (scores-pattern.csv) for diagnosis.
+	 * @param directory the path of the directory or null to stop writing the scores
+	 */
+	public void setScoreDumpDirectory(String directory) {
+		if (directory == null) {
+			detector.setScoreDumpDirectory(null);
+		} else {
+			detector.setScoreDumpDirectory(Paths.get(directory));
+		}
+	}
+
 	/**
 	 * Authenticates the user with the authentication method and data to the kubernetes cluster 
 	 * @param method the method of authentication
@@ -90,16 +256,20 @@ public class Model {
 
 	/**
 	 * Generates the result graphs by creating all patterns, building the graph of the kubernetes cluster architecture and detecting all pattern instances in this graph.
+	 * An install run starts from an empty graph and pattern list, so a failed install run can be retried with another install run.
 	 * @param install true if the kubernetes infrastructure needs to be installed in the cluster
 	 * @return the list of result graphs representing instances of all detected patterns in the graph
 	 * @throws ApiException thrown if the list call to the kubernetes client fails.
 	 * @throws GraphException  thrown if an operation can't be performed on a graph
 	 * @throws InterruptedException thrown if a user interrupts the thread
-	 * @throws CloneNotSupportedException 
 	 */
-	public List<ReadableGraph> generateGraphs(boolean install) throws ApiException, GraphException, InterruptedException, CloneNotSupportedException {
+	public List<ReadableGraph> generateGraphs(boolean install) throws ApiException, GraphException, InterruptedException {
 		List<ReadableGraph> resGraphs = new ArrayList<>();
 		if (install) {
+			// a retried install run must not duplicate the patterns or merge the cluster into the graph of the failed run
+			this.stopWatcher();
+			graph = new Graph();
+			patternList.clear();
 			Pattern apiGateway = new ApiGateway();
 			Pattern scattergather = new ScatterGather();
 			Pattern leaderelection = new LeaderElection();
@@ -114,21 +284,90 @@ public class Model {
 			if (install) {
 				TestGraph test = new TestGraph();
 				graph = test.getGraph();
-				for (Pattern pattern : this.patternList) {
-					resGraphs.addAll(detector.detect(graph, pattern, 0));
-				}
+				resGraphs.addAll(this.detectPatterns());
 			} else {
-				graph.clear();
-				trans.transform(client, graph, connector, install, MOCK);
+				this.updateGraph();
 				TestApiGatewayDetector testDetector = new TestApiGatewayDetector();
 				resGraphs.addAll(testDetector.detect(graph));
 			}
 		} else {
-			if (!install)
-				graph.clear();
-			trans.transform(client, graph, connector, install, MOCK);
-			for (Pattern pattern : this.patternList) {
-				resGraphs.addAll(detector.detect(graph, pattern, 0));
+			if (install)
+				trans.transform(client, graph, connector, install, MOCK);
+			else
+				this.updateGraph();
+			resGraphs.addAll(this.detectPatterns());
+		}
+		return resGraphs;
+	}
+
+	/**
+	 * Updates the graph with all changes of the kubernetes cluster since the last rerun.
+	 * The cluster watcher is started on the first rerun and fills the empty graph with the whole cluster, afterwards only the changes are applied.
+	 * @throws ApiException thrown if the watch or a call to the kubernetes client fails.
+	 * @throws GraphException  thrown if an operation can't be performed on a graph
+	 * @throws InterruptedException thrown if a user interrupts the thread
+	 */
+	private void updateGraph() throws ApiException, GraphException, InterruptedException {
+		if (watcher == null) {
+			try {
+				watcher = new ClusterWatcher(client, MOCK);
+			} catch (IOException e) {
+				throw new ApiException("The watch of the cluster failed: " + e.getMessage());
+			}
+			watcher.start();
+			graph.clear();
+			graph.generateAdjacencyMatrices();
+		}
+		trans.update(client, watcher, graph, connector, MOCK);
+	}
+
+	/**
+	 * Stops the cluster watcher, so the next rerun starts a new one.
+	 */
+	private void stopWatcher() {
+		if (watcher != null) {
+			watcher.stop();
+			watcher = null;
+		}
+	}
+
+	/**
+	 * Closes the model by stopping the cluster watcher and the threads of the detection.
+	 * The model can't generate any result graphs after it was closed and a run in progress may fail.
+	 */
+	public void close() {
+		this.stopWatcher();
+		detectionPool.shutdownNow();
+	}
+
+	/**
+	 * Detects all patterns of the pattern list concurrently in the graph of the kubernetes cluster architecture.
+	 * The result graphs are merged in the order of the pattern list, independent of which detection finishes first.
+	 * @return the list of result graphs representing instances of all detected patterns in the graph
+	 * @throws GraphException  thrown if an operation can't be performed on a graph
+	 * @throws InterruptedException thrown if a user interrupts the thread
+	 */
+	private List<ReadableGraph> detectPatterns() throws GraphException, InterruptedException {
+		List<Future<List<ReadableGraph>>> detections = new ArrayList<>();
+		for (Pattern pattern : this.patternList) {
+			detections.add(detectionPool.submit(() -> detector.detect(graph, pattern, 0)));
+		}
+		List<ReadableGraph> resGraphs = new ArrayList<>();
+		try {
+			for (Future<List<ReadableGraph>> detection : detections) {
+				resGraphs.addAll(detection.get());
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof GraphException) {
+				throw (GraphException) e.getCause();
+			} else if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else {
+				throw new GraphException("The detection of a pattern failed: " + e.getCause());
+			}
+		} finally {
+			for (Future<List<ReadableGraph>> detection : detections) {
+				detection.cancel(true);
 			}
 		}
 		return resGraphs;
@@ -1,12 +1,28 @@
 package model;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.ListIterator;
-
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.ejml.data.DMatrixRMaj;
 import org.ejml.simple.SimpleMatrix;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import controller.GraphException;
 import controller.PatternType;
@@ -19,21 +35,122 @@ import controller.PatternType;
 class PatternDetector {
 
 	/**
-	 * The threshhold for the algorithm to detect patterns.
+	 * The logger of the detection, the similarity scores are logged on the trace level.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(PatternDetector.class);
+
+	/**
+	 * The number of incremental detections of a pattern, after which the next detection is a full detection again.
 	 */
-	private static final double THRESHOLD = 0.0001;
+	static final int FULL_DETECTION_INTERVAL = 10;
+
+	/**
+	 * The largest fraction of affected vertices of the graph, up to which a pattern is detected incrementally.
+	 */
+	static final double MAX_AFFECTED_FRACTION = 0.25;
 
 	/**
 	 * The similarity algorithm to detect patterns.
 	 */
 	private SimilarityAlgorithm algorithm;
 
+	/**
+	 * The directory to write the similarity scores of every detection to or null if no scores are written.
+	 */
+	private volatile Path scoreDumpDirectory;
+
+	/**
+	 * The selector of the members of a pattern out of the similarity scores.
+	 */
+	private volatile CandidateSelector selector;
+
+	/**
+	 * This boolean indicates if the similarity iteration of a pattern starts from the converged scores of its previous detection.
+	 */
+	private volatile boolean warmStart;
+
+	/**
+	 * The converged scores of the previous detection of every pattern, which are kept only if warm start is enabled.
+	 */
+	private Map<PatternType, WarmStart> warmStarts = new ConcurrentHashMap<>();
+
+	/**
+	 * This boolean indicates if a pattern is only detected again around the vertices, which changed since its previous detection.
+	 */
+	private volatile boolean incremental;
+
+	/**
+	 * The previous detection of every pattern, which is kept only if incremental detection is enabled.
+	 */
+	private Map<PatternType, Detection> detections = new ConcurrentHashMap<>();
+
+	/**
+	 * The snapshot of the last detected version of the graph, which is shared by the detections of all patterns.
+	 */
+	private GraphSnapshot snapshot;
 
 	/**
 	 * Initializes the pattern detector by initializing the algorithm to detect this pattern.
 	 */
 	PatternDetector() {
 		algorithm = new SimilarityAlgorithm();
+		selector = new CandidateSelector();
+	}
+
+	/**
+	 * Gets the similarity algorithm to detect patterns.
+	 * @return the similarity algorithm
+	 */
+	SimilarityAlgorithm getAlgorithm() {
+		return algorithm;
+	}
+
+	/**
+	 * Sets the selector of the members of a pattern out of the similarity scores, the default selects every member reaching the threshold.
+	 * @param selector the candidate selector
+	 */
+	void setSelector(CandidateSelector selector) {
+		this.selector = selector;
+	}
+
+	/**
+	 * Sets if the similarity iteration of a pattern starts from the converged scores of its previous detection instead of ones.
+	 * The previous scores are mapped onto the vertices of the current graph by their names, so reruns on an unchanged cluster take just two iterations.
+	 * The limit of the even iterations depends on the start, so the similarity algorithm calculates the scores from ones again, if the graph changed them
+	 * by more than the tolerance, and only the scores of a start from ones are kept for the next detection.
+	 * Disabling warm start drops the kept scores.
+	 * @param warmStart true to start from the previous scores
+	 */
+	void setWarmStart(boolean warmStart) {
+		this.warmStart = warmStart;
+		if (!warmStart) {
+			warmStarts.clear();
+		}
+	}
+
+	/**
+	 * Sets if a pattern is only detected again around the vertices, which were added or whose edges changed since its previous detection.
+	 * The similarity scores are calculated for the whole graph like a full detection (see setWarmStart), but only the seeds within the radius of the pattern
+	 * around a change or a vertex, whose candidate roles changed, are assembled again. The instances without an affected member are kept as they are,
+	 * so the result may differ slightly from a full detection, whose scores far away from a change reordered the candidates of an instance.
+	 * The kept instances are bounded by a full detection after every FULL_DETECTION_INTERVAL incremental detections of a pattern
+	 * and whenever more than MAX_AFFECTED_FRACTION of the vertices are affected by the changes.
+	 * Disabling incremental detection drops the kept detections.
+	 * @param incremental true to detect the patterns incrementally
+	 */
+	void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+		if (!incremental) {
+			detections.clear();
+		}
+	}
+
+	/**
+	 * Sets the directory to write the similarity scores of every detection to, the file of a pattern is overwritten by its next detection.
+	 * @param scoreDumpDirectory the directory or null to stop writing the scores
+	 */
+	void setScoreDumpDirectory(Path scoreDumpDirectory) {
+		this.scoreDumpDirectory = scoreDumpDirectory;
 	}
 
 	/**
@@ -44,125 +161,577 @@ class PatternDetector {
 	 * @return a list of graphs where every graph stands for one occurrence of the pattern in the graph.
 	 * 			Thereby one graph consists of all involved nodes and edges of the pattern.
 	 * @throws GraphException thrown if an operation can't be performed on a graph
-	 * @throws CloneNotSupportedException 
 	 */
-	List<ReadableGraph> detect(Graph graph, Pattern pattern, int connectingMemberRoles) throws GraphException, CloneNotSupportedException {
+	List<ReadableGraph> detect(Graph graph, Pattern pattern, int connectingMemberRoles) throws GraphException {
+
+		// an incremental detection only compares the graph with the snapshot of the previous detection of the pattern
+		PatternType patternType = pattern.getPatternType();
+		boolean incremental = this.incremental;
+		Detection previous = incremental ? detections.get(patternType) : null;
+		GraphSnapshot current = incremental ? this.getSnapshot(graph) : null;
+		BitSet changedVertices = previous == null ? null : previous.snapshot.getChangedVertices(current);
+		if (changedVertices != null && changedVertices.isEmpty()) {
+			LOGGER.debug("The graph did not change since the previous detection of the pattern {}", patternType);
+			int[] indices = previous.snapshot.getIndices(current);
+			Detection detection = new Detection(current, this.keepInstances(previous, current, new BitSet(), new BitSet()),
+					relocate(previous.candidateRoles, indices, current.getSize()), previous.incrementalDetections);
+			detections.put(patternType, detection);
+			return new ArrayList<>(detection.instances);
+		}
+
+		IterationStatistics statistics = new IterationStatistics();
+		boolean warmStart = this.warmStart;
+		WarmStart start = warmStart ? warmStarts.get(patternType) : null;
+		DMatrixRMaj initial = start == null ? null : start.remap(graph);
+		SimpleMatrix scores = algorithm.perform(graph, pattern.getGraph(), statistics, initial);
+		if (scores == null) {
+			detections.remove(patternType);
+			return new ArrayList<>();
+		}
+		if (!statistics.isConverged()) {
+			LOGGER.warn("The similarity scores of the pattern {} did not converge: {}", patternType, statistics);
+		} else {
+			LOGGER.debug("Similarity iteration of the pattern {}{}: {}", patternType, initial == null ? "" : " (warm start)", statistics);
+			// only the scores of a start from ones are kept, so the warm starts of later detections don't drift away from them
+			if (warmStart && !statistics.isWarmStart()) {
+				warmStarts.put(patternType, new WarmStart(graph, scores.getDDRM()));
+			}
+		}
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("Similarity scores of the pattern {}:{}", patternType, formatScores(scores));
+		}
+		if (scoreDumpDirectory != null) {
+			this.dumpScores(graph, pattern, scores);
+		}
+		if (!incremental) {
+			return new ArrayList<>(this.assembleInstances(graph, pattern, scores, connectingMemberRoles, null));
+		}
+
+		List<InstanceGraph> instances = null;
+		long[] candidateRoles = this.getCandidateRoles(scores.getDDRM());
+		int incrementalDetections = 0;
+		if (previous != null && previous.incrementalDetections < FULL_DETECTION_INTERVAL) {
+			// the scores change far away from a change as well, so a vertex, whose candidate roles changed, changed too
+			long[] previousRoles = relocate(previous.candidateRoles, previous.snapshot.getIndices(current), current.getSize());
+			for (int v = 0; v < candidateRoles.length; v++) {
+				if (candidateRoles[v] != previousRoles[v]) {
+					changedVertices.set(v);
+				}
+			}
+			// only the seeds around a change and the seeds of dropped instances are assembled again
+			BitSet affectedVertices = this.getAffectedVertices(graph, changedVertices, getRadius(pattern));
+			if (affectedVertices.cardinality() <= MAX_AFFECTED_FRACTION * graph.getVertices().size()) {
+				BitSet seedNodes = (BitSet) affectedVertices.clone();
+				instances = this.keepInstances(previous, current, affectedVertices, seedNodes);
+				int kept = instances.size();
+				instances.addAll(this.assembleInstances(graph, pattern, scores, connectingMemberRoles, seedNodes));
+				instances.sort(Comparator.comparingInt(instance -> instance.getVertexByIndex(0).getIndex()));
+				incrementalDetections = previous.incrementalDetections + 1;
+				LOGGER.debug("Incremental detection of the pattern {}: {} changed vertices, {} affected vertices, {} kept and {} assembled instances",
+						patternType, changedVertices.cardinality(), affectedVertices.cardinality(), kept, instances.size() - kept);
+			}
+		}
+		if (instances == null) {
+			// the first detection and the full detections, which drop the instances kept since the last one
+			instances = this.assembleInstances(graph, pattern, scores, connectingMemberRoles, null);
+		}
+		detections.put(patternType, new Detection(current, instances, candidateRoles, incrementalDetections));
+		return new ArrayList<>(instances);
+	}
+
+	/**
+	 * Gets the snapshot of the current version of a graph, which is copied again only if the graph changed since the last detection.
+	 * @param graph the graph to search for the patterns
+	 * @return the snapshot of the graph
+	 */
+	private synchronized GraphSnapshot getSnapshot(Graph graph) {
+		long version = graph.getVersion();
+		if (snapshot == null || !snapshot.represents(graph, version)) {
+			snapshot = new GraphSnapshot(graph, version);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Keeps the instances of a previous detection, which have no affected member, for the current version of the graph.
+	 * The seeds of dropped instances, which are still part of the graph, are marked to be assembled again.
+	 * @param previous the previous detection
+	 * @param current the snapshot of the current version of the graph
+	 * @param affectedVertices the vertices of the current version around a change
+	 * @param seedNodes the set of seeds to be assembled again
+	 * @return the kept instances with the indices of the current version
+	 */
+	private List<InstanceGraph> keepInstances(Detection previous, GraphSnapshot current, BitSet affectedVertices, BitSet seedNodes) {
+		int[] indices = previous.snapshot.getIndices(current);
+		List<InstanceGraph> res = new ArrayList<>(previous.instances.size());
+		for (InstanceGraph instance : previous.instances) {
+			int size = instance.getVertices().size();
+			int[] members = new int[size];
+			boolean kept = true;
+			for (int i = 0; i < size; i++) {
+				members[i] = indices[instance.getVertexByIndex(i).getIndex()];
+				kept &= members[i] >= 0 && !affectedVertices.get(members[i]);
+			}
+			if (kept) {
+				res.add(instance.relocate(members));
+			} else if (members[0] >= 0) {
+				seedNodes.set(members[0]);
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Gets the candidate roles of every vertex, which the selector selects out of the similarity scores, ordered by their scores.
+	 * An instance takes a member in the role with its highest score first, so a vertex changes its instance, if it gains or loses a role or the order of its roles changes.
+	 * The roles are encoded as digits of the number of roles plus one, starting with the role with the highest score.
+	 * @param scores the similarity scores of the pattern (rows) and the graph (columns)
+	 * @return the encoded candidate roles of every vertex, zero for a vertex without a candidate role
+	 */
+	private long[] getCandidateRoles(DMatrixRMaj scores) {
+		CandidateSelector.Candidates candidates = this.selector.select(scores, 0, scores.numRows, true);
+		long[] res = new long[scores.numCols];
+		// the candidates are sorted by descending scores, so the role with the highest score becomes the highest digit
+		for (int c = candidates.size() - 1; c >= 0; c--) {
+			int node = candidates.getNode(c);
+			res[node] = res[node] * (scores.numRows + 1) + candidates.getRole(c) + 1;
+		}
+		return res;
+	}
+
+	/**
+	 * Maps the candidate roles of every vertex onto the vertices of a later version of the graph, the vertices, which were added, have no candidate role.
+	 * @param roles the encoded candidate roles of every vertex
+	 * @param indices the index in the later version of every vertex or -1 if the vertex was removed
+	 * @param size the number of vertices of the later version
+	 * @return the encoded candidate roles of every vertex of the later version
+	 */
+	private static long[] relocate(long[] roles, int[] indices, int size) {
+		long[] res = new long[size];
+		for (int v = 0; v < roles.length; v++) {
+			if (indices[v] >= 0) {
+				res[indices[v]] = roles[v];
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Gets all vertices within a number of edges of any direction around the changed vertices.
+	 * @param graph the graph to search for the patterns
+	 * @param changedVertices the changed vertices
+	 * @param radius the maximal number of edges to a changed vertex
+	 * @return the affected vertices including the changed vertices
+	 */
+	private BitSet getAffectedVertices(Graph graph, BitSet changedVertices, int radius) {
+		BitSet res = (BitSet) changedVertices.clone();
+		BitSet frontier = changedVertices;
+		for (int r = 0; r < radius && !frontier.isEmpty(); r++) {
+			BitSet next = new BitSet(graph.getVertices().size());
+			for (int v = frontier.nextSetBit(0); v >= 0; v = frontier.nextSetBit(v + 1)) {
+				this.markNeighbours(graph, v, next, true);
+			}
+			next.andNot(res);
+			res.or(next);
+			frontier = next;
+		}
+		return res;
+	}
+
+	/**
+	 * Gets the radius of a pattern, which is the largest number of edges of any direction between the seed and another vertex of the pattern.
+	 * @param pattern the pattern
+	 * @return the radius, at least one
+	 */
+	private static int getRadius(Pattern pattern) {
+		Graph graph = pattern.getGraph();
+		int n = graph.getVertices().size();
+		int[] distances = new int[n];
+		Arrays.fill(distances, -1);
+		int[] queue = new int[n];
+		int head = 0;
+		int tail = 0;
+		distances[0] = 0;
+		queue[tail++] = 0;
+		int radius = 1;
+		while (head < tail) {
+			int v = queue[head++];
+			radius = Math.max(radius, distances[v]);
+			for (int k = 0; k < graph.getOutDegree(v) + graph.getInDegree(v); k++) {
+				int w = k < graph.getOutDegree(v) ? graph.getOutNeighbour(v, k) : graph.getInNeighbour(v, k - graph.getOutDegree(v));
+				if (distances[w] < 0) {
+					distances[w] = distances[v] + 1;
+					queue[tail++] = w;
+				}
+			}
+		}
+		return radius;
+	}
 
-		// generate graph instances out of the entries
-		List<ReadableGraph> resGraphs = new ArrayList<>();
+	/**
+	 * Extracts all instances of a pattern out of the similarity scores of a graph and the pattern.
+	 * @param graph the graph to search for the patterns
+	 * @param pattern the pattern to be searched for
+	 * @param scores the similarity scores of the pattern (rows) and the graph (columns)
+	 * @param connectingMemberRoles the number of roles of nodes, which connect the seed to margin members with no direct connection to a seed
+	 * @return a list of graphs where every graph stands for one occurrence of the pattern in the graph.
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 */
+	List<ReadableGraph> extractInstances(Graph graph, Pattern pattern, SimpleMatrix scores, int connectingMemberRoles) throws GraphException {
+		return new ArrayList<>(this.assembleInstances(graph, pattern, scores, connectingMemberRoles, null));
+	}
 
-		SimpleMatrix scores = algorithm.perform(graph, pattern.getGraph());
-		if (scores == null)
-			return resGraphs;
+	/**
+	 * Assembles the instances of a pattern around the seeds out of the similarity scores of a graph and the pattern.
+	 * @param graph the graph to search for the patterns
+	 * @param pattern the pattern to be searched for
+	 * @param scores the similarity scores of the pattern (rows) and the graph (columns)
+	 * @param connectingMemberRoles the number of roles of nodes, which connect the seed to margin members with no direct connection to a seed
+	 * @param seedNodes the nodes to assemble instances around or null for all seeds
+	 * @return the instances ordered by their seeds
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 */
+	private List<InstanceGraph> assembleInstances(Graph graph, Pattern pattern, SimpleMatrix scores, int connectingMemberRoles, BitSet seedNodes) throws GraphException {
 
 		// a member can have three roles: seed, normal member and margin member
 		// observation: many patterns in microservices/ containerization are quite small and have only one central node (set it as seed) and connected to it many margin members
 		// idea: spare effort by just look for connections of the seed and full members and not of margin members
 		// hint: connections between margin members are not included in the graph to reduce the amount of irrelevant edges
-		List<Member> seeds = new ArrayList<>();
-		List<Member> marginMembers = new ArrayList<>();
-		List<Member> members = new ArrayList<>();
+		// the members are ordered by their score, members of connecting roles are added before margin members
+		DMatrixRMaj scoreData = scores.getDDRM();
+		CandidateSelector selector = this.selector;
+		CandidateSelector.Candidates seeds = selector.select(scoreData, 0, Math.min(1, scoreData.numRows), false);
+		CandidateSelector.Candidates members = selector.select(scoreData, 1, Math.min(connectingMemberRoles + 1, scoreData.numRows), true);
+		CandidateSelector.Candidates marginMembers = selector.select(scoreData, Math.min(connectingMemberRoles + 1, scoreData.numRows), scoreData.numRows, true);
+
+		// every seed is assembled independently with a scratch space borrowed from a pool of this call, the stream keeps the order of the seeds
+		// the pool holds at most one scratch space per worker thread and is dropped with the call, so no scratch space outlives the detection
+		int n = graph.getVertices().size();
+		Queue<Scratch> scratchPool = new ConcurrentLinkedQueue<>();
+		try {
+			return IntStream.range(0, seeds.size()).parallel()
+					.filter(s -> seedNodes == null || seedNodes.get(seeds.getNode(s)))
+					.mapToObj(s -> {
+						Scratch scratch = scratchPool.poll();
+						if (scratch == null) {
+							scratch = new Scratch(n);
+						}
+						try {
+							return this.assembleInstance(graph, pattern, new Member(seeds.getNode(s), seeds.getRole(s), seeds.getScore(s)),
+									members, marginMembers, connectingMemberRoles, scratch);
+						} catch (GraphException e) {
+							throw new CompletionException(e);
+						} finally {
+							scratchPool.offer(scratch);
+						}
+					})
+					.filter(Objects::nonNull)
+					.collect(Collectors.toList());
+		} catch (CompletionException e) {
+			throw (GraphException) e.getCause();
+		}
+	}
 
-		// search for possible members of a pattern and add the entry to a role list
-		for (int i = 0; i < scores.numRows(); i++) {
-			System.out.print("|");
-			for (int j = 0; j < scores.numCols(); j++) {
-				if (pattern.getPatternType() == PatternType.SCATTER_GATHER) {
-					System.out.print(scores.get(i, j) + "-");
+	/**
+	 * Assembles the instance of a pattern around a seed by adding all members, which are connected to the seed or an inner member.
+	 * @param graph the graph to search for the patterns
+	 * @param pattern the pattern to be searched for
+	 * @param seed the seed of the instance
+	 * @param members the candidates of the connecting roles ordered by their score
+	 * @param marginMembers the candidates of the margin roles ordered by their score
+	 * @param connectingMemberRoles the number of roles of nodes, which connect the seed to margin members with no direct connection to a seed
+	 * @param scratch the scratch space of the instance, which is reset afterwards
+	 * @return the instance or null if the instance doesn't fulfil the appearances of the roles of the pattern
+	 * @throws GraphException thrown if an operation can't be performed on a graph
+	 */
+	private InstanceGraph assembleInstance(Graph graph, Pattern pattern, Member seed, CandidateSelector.Candidates members, CandidateSelector.Candidates marginMembers,
+			int connectingMemberRoles, Scratch scratch) throws GraphException {
+		// functions: assures the same node is not in the pattern twice, same node should not be in two pattern roles
+		List<Member> includedMembers = scratch.includedMembers;
+		PatternType patternType = pattern.getPatternType();
+		try {
+			this.include(graph, seed, scratch, connectingMemberRoles);
+			for (int m = 0; m < members.size() + marginMembers.size(); m++) {
+				CandidateSelector.Candidates candidates = m < members.size() ? members : marginMembers;
+				int c = m < members.size() ? m : m - members.size();
+				int node = candidates.getNode(c);
+				// a member can be added, if the node is not in the instance yet and has a connection to the seed or an inner member
+				if (!scratch.usedNodes.get(node) && scratch.connectedNodes.get(node)) {
+					this.include(graph, new Member(node, candidates.getRole(c), candidates.getScore(c)), scratch, connectingMemberRoles);
+				}
+			}
+
+			int size = includedMembers.size();
+			String[] names = new String[size];
+			int[] indices = new int[size];
+			int[] roles = new int[size];
+			int[] roleAppearances = new int[patternType.getRoles().length];
+			for (int i = 0; i < size; i++) {
+				Member member = includedMembers.get(i);
+				ReadableVertex vertex = graph.getVertexByIndex(member.getNode());
+				names[i] = vertex.getName();
+				indices[i] = vertex.getIndex();
+				roles[i] = patternType.getRoleIndex(pattern.getGraph().getVertexByIndex(member.getPattern()).getRole());
+				roleAppearances[roles[i]]++;
+			}
+
+			for (int patternRole = 0; patternRole < roleAppearances.length; patternRole++) {
+				if (roleAppearances[patternRole] < patternType.getMinAppearance(patternRole) ||
+						roleAppearances[patternRole] > patternType.getMaxAppearance(patternRole)) {
+					return null;
 				}
-				if (scores.get(i, j) >= THRESHOLD) {
-					Member member = new Member(j, i, scores.get(i, j));
-					if (i == 0) {
-						seeds.add(member);
-					} else if (i <= connectingMemberRoles) {
-						members.add(member);
-					} else {
-						marginMembers.add(member);
+			}
+
+			// generates edges, adds only edges which include inner members (no connections between margin members)
+			InstanceGraph instance = new InstanceGraph(patternType, names, indices, roles, roleAppearances);
+			for (int i = 0; i < size && i <= connectingMemberRoles; i++) {
+				int fullMember = includedMembers.get(i).getNode();
+				for (int j = 0; j < size; j++) {
+					int connectionType = graph.getConnectionByIndex(fullMember, includedMembers.get(j).getNode());
+					if (connectionType == 1) {
+						instance.addEdge(i, j);
+					} else if (connectionType == 2) {
+						instance.addEdge(j, i);
+					} else if (connectionType > 2) {
+						instance.addEdge(j, i);
+						instance.addEdge(i, j);
 					}
 				}
 			}
-			System.out.println("|");
+			return instance;
+		} finally {
+			this.exclude(graph, scratch, connectingMemberRoles);
 		}
+	}
 
-		Collections.sort(members, new MemberComparator());
-		Collections.sort(marginMembers, new MemberComparator());
-		members.addAll(marginMembers);
+	/**
+	 * Includes a member into the instance, which is assembled, and marks its node as used.
+	 * The neighbours of a seed or an inner member are marked as connected, so they can be included as further members.
+	 * @param graph the graph to search for the patterns
+	 * @param member the member to include
+	 * @param scratch the scratch space of the instance
+	 * @param connectingMemberRoles the number of roles of nodes, which connect the seed to margin members with no direct connection to a seed
+	 */
+	private void include(Graph graph, Member member, Scratch scratch, int connectingMemberRoles) {
+		scratch.includedMembers.add(member);
+		scratch.usedNodes.set(member.getNode());
+		if (member.getPattern() <= connectingMemberRoles) {
+			this.markNeighbours(graph, member.getNode(), scratch.connectedNodes, true);
+		}
+	}
 
-		List<Member> includedMembers = new ArrayList<>();
-		boolean addMember;
-		boolean hasConnection;
+	/**
+	 * Removes all members of an assembled instance and resets the marked nodes, so the sets can be reused for the next seed.
+	 * Only the marked nodes are reset, which is cheaper than clearing the whole sets on a large graph.
+	 * @param graph the graph to search for the patterns
+	 * @param scratch the scratch space of the instance
+	 * @param connectingMemberRoles the number of roles of nodes, which connect the seed to margin members with no direct connection to a seed
+	 */
+	private void exclude(Graph graph, Scratch scratch, int connectingMemberRoles) {
+		for (Member member : scratch.includedMembers) {
+			scratch.usedNodes.clear(member.getNode());
+			if (member.getPattern() <= connectingMemberRoles) {
+				this.markNeighbours(graph, member.getNode(), scratch.connectedNodes, false);
+			}
+		}
+		scratch.includedMembers.clear();
+	}
 
-		// functions: assures the same node is not in the pattern twice, same node should not be in two pattern roles
-		for (Member seed : seeds) {
-			Graph instance = new Graph();
-			instance.setPattern(pattern.getPatternType());
-			instance.initRoleAppearances();
-			includedMembers.add(seed);
-			instance.increaseRoleAppearance(instance.getPattern().getRoleIndex(pattern.getGraph().getVertexByIndex(seed.getPattern()).getRole()));
-			for (Member newMember : members) {
-				addMember = true; // indicates whether this member can be added or not
-				hasConnection = false; // indicates if this new member has a connection to the corresponding seed
-				ListIterator<Member> it = includedMembers.listIterator();
-				while (addMember && it.hasNext()) {
-					Member itMember = it.next();
-					if (itMember.getNode() == newMember.getNode()) { // checks if the node already appears in the list in another role
-						addMember = false;
-					} else if (itMember.getPattern() <= connectingMemberRoles &&
-							graph.getConnectionByIndex(itMember.getNode(), newMember.getNode()) > 0) { // checks for a connection to an inner member or seed
-						hasConnection = true;
-					}
-				}
-				if (addMember && hasConnection) {
-					includedMembers.add(newMember);
-					instance.increaseRoleAppearance(instance.getPattern().getRoleIndex(pattern.getGraph().getVertexByIndex(newMember.getPattern()).getRole()));
+	/**
+	 * Marks or unmarks all nodes with an incoming or outgoing edge of a node.
+	 * @param graph the graph to search for the patterns
+	 * @param node the index of the node
+	 * @param nodes the set of marked nodes
+	 * @param mark true to mark the neighbours, false to unmark them
+	 */
+	private void markNeighbours(Graph graph, int node, BitSet nodes, boolean mark) {
+		for (int k = 0; k < graph.getOutDegree(node); k++) {
+			nodes.set(graph.getOutNeighbour(node, k), mark);
+		}
+		for (int k = 0; k < graph.getInDegree(node); k++) {
+			nodes.set(graph.getInNeighbour(node, k), mark);
+		}
+	}
+
+	/**
+	 * Writes the similarity scores of a detection as csv file (scores-pattern.csv) to the score dump directory.
+	 * The first row contains the vertex names of the graph and every other row the scores of a vertex of the pattern.
+	 * A failed write is logged and does not stop the detection.
+	 * @param graph the graph to search for the patterns
+	 * @param pattern the pattern to be searched for
+	 * @param scores the similarity scores of the pattern (rows) and the graph (columns)
+	 */
+	private void dumpScores(Graph graph, Pattern pattern, SimpleMatrix scores) {
+		Path file = scoreDumpDirectory.resolve("scores-" + pattern.getPatternType().name().toLowerCase() + ".csv");
+		try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+			writer.write("pattern");
+			for (int j = 0; j < scores.numCols(); j++) {
+				writer.write("," + graph.getVertices().get(j).getName());
+			}
+			writer.newLine();
+			for (int i = 0; i < scores.numRows(); i++) {
+				writer.write(pattern.getGraph().getVertices().get(i).getName());
+				for (int j = 0; j < scores.numCols(); j++) {
+					writer.write("," + scores.get(i, j));
 				}
+				writer.newLine();
 			}
+		} catch (IOException e) {
+			LOGGER.warn("The similarity scores of the pattern {} could not be written to {}: {}", pattern.getPatternType(), file, e.getMessage());
+		}
+	}
 
-			boolean deleteInstance = false;
+	/**
+	 * Formats the similarity scores to log them, every row of the scores is written in a new line.
+	 * @param scores the similarity scores of the pattern (rows) and the graph (columns)
+	 * @return the formatted scores
+	 */
+	private static String formatScores(SimpleMatrix scores) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < scores.numRows(); i++) {
+			builder.append(System.lineSeparator()).append('|');
+			for (int j = 0; j < scores.numCols(); j++) {
+				builder.append(scores.get(i, j)).append('|');
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * This class contains the converged similarity scores of a detection with the names of the vertices of its graph,
+	 * so the scores can be mapped onto the vertices of a later version of the graph.
+	 * @author Alexis T. Bernhard
+	 *
+	 */
+	private static class WarmStart {
+
+		/**
+		 * The names of the vertices of the graph in the order of the columns of the scores.
+		 */
+		private String[] names;
+
+		/**
+		 * The converged similarity scores of the pattern (rows) and the graph (columns).
+		 */
+		private DMatrixRMaj scores;
 
-			for (int patternRole = 0; patternRole < pattern.getPatternType().getRoles().length; patternRole++) {
-				if (instance.getRoleAppearance(patternRole) < pattern.getPatternType().getMinAppearance(patternRole) ||
-						instance.getRoleAppearance(patternRole) > pattern.getPatternType().getMaxAppearance(patternRole)) {
-					deleteInstance = true;
+		/**
+		 * Keeps the converged similarity scores of a detection.
+		 * @param graph the graph of the detection
+		 * @param scores the converged similarity scores, which are copied
+		 */
+		WarmStart(Graph graph, DMatrixRMaj scores) {
+			names = new String[scores.numCols];
+			for (int j = 0; j < names.length; j++) {
+				names[j] = graph.getVertices().get(j).getName();
+			}
+			this.scores = scores.copy();
+		}
+
+		/**
+		 * Maps the kept scores onto the vertices of a graph by their names.
+		 * A vertex, which was not part of the previous graph, starts from the mean score of the pattern vertex.
+		 * @param graph the graph of the next detection
+		 * @return the start scores of the pattern (rows) and the graph (columns)
+		 */
+		DMatrixRMaj remap(Graph graph) {
+			Map<String, Integer> columns = new HashMap<>();
+			for (int j = 0; j < names.length; j++) {
+				columns.put(names[j], j);
+			}
+			int n = scores.numRows;
+			int m = graph.getVertices().size();
+			double[] means = new double[n];
+			for (int i = 0; i < n; i++) {
+				for (int j = 0; j < names.length; j++) {
+					means[i] += scores.get(i, j);
 				}
+				means[i] /= names.length;
 			}
+			DMatrixRMaj initial = new DMatrixRMaj(n, m);
+			for (int j = 0; j < m; j++) {
+				Integer column = columns.get(graph.getVertices().get(j).getName());
+				for (int i = 0; i < n; i++) {
+					initial.set(i, j, column == null ? means[i] : scores.get(i, column));
+				}
+			}
+			return initial;
+		}
+	}
 
-			if (!deleteInstance) {
+	/**
+	 * This class contains the result of the previous detection of a pattern, which an incremental detection compares and updates.
+	 * @author Alexis T. Bernhard
+	 *
+	 */
+	private static class Detection {
 
-				// create all vertices of the graph out of the included members
-				for (Member member : includedMembers) {
-					Vertex newVertex = (Vertex) ((Vertex) graph.getVertexByIndex(member.getNode())).clone();
-					newVertex.setRole(pattern.getGraph().getVertexByIndex(member.getPattern()).getRole());		
-					instance.addVertex(newVertex);
-				}
+		/**
+		 * The snapshot of the detected version of the graph.
+		 */
+		private GraphSnapshot snapshot;
 
-				// generates edges, adds only edges which include inner members (no connections between margin members)
-				instance.generateAdjacencyMatrices();
-				ListIterator<Member> it = includedMembers.listIterator();
-				while (it.hasNext() && it.nextIndex() <= connectingMemberRoles) {
-					Member fullMember = it.next();
-					ListIterator<Member> iter = includedMembers.listIterator();
-					while (iter.hasNext()) {
-						Member member = iter.next();
-						int connectionType = graph.getConnectionByIndex(fullMember.getNode(), member.getNode());
-						if (connectionType == 1) {
-							instance.addEdgeByIndex(it.previousIndex(), iter.previousIndex(), 0);
-						} else if (connectionType == 2) {
-							instance.addEdgeByIndex(iter.previousIndex(), it.previousIndex(), 0);
-						} else if (connectionType > 2) {
-							instance.addEdgeByIndex(iter.previousIndex(), it.previousIndex(), 0);
-							instance.addEdgeByIndex(it.previousIndex(), iter.previousIndex(), 0);
-						}
-					}
-				}
+		/**
+		 * The detected instances ordered by their seeds.
+		 */
+		private List<InstanceGraph> instances;
 
-				resGraphs.add(instance);
-			} else {
-				instance.clear();
-			}
-			includedMembers.clear();
+		/**
+		 * The encoded candidate roles of every vertex, which were selected out of the similarity scores (see getCandidateRoles).
+		 */
+		private long[] candidateRoles;
+
+		/**
+		 * The number of incremental detections since the last full detection.
+		 */
+		private int incrementalDetections;
+
+		/**
+		 * Keeps the result of a detection.
+		 * @param snapshot the snapshot of the detected version of the graph
+		 * @param instances the detected instances
+		 * @param candidateRoles the encoded candidate roles of every vertex
+		 * @param incrementalDetections the number of incremental detections since the last full detection
+		 */
+		Detection(GraphSnapshot snapshot, List<InstanceGraph> instances, long[] candidateRoles, int incrementalDetections) {
+			this.snapshot = snapshot;
+			this.instances = instances;
+			this.candidateRoles = candidateRoles;
+			this.incrementalDetections = incrementalDetections;
+		}
+	}
+
+	/**
+	 * This class contains the scratch space to assemble instances, which is used by one thread at a time and reset after every instance.
+	 * @author Alexis T. Bernhard
+	 *
+	 */
+	private static class Scratch {
+
+		/**
+		 * The members of the instance.
+		 */
+		private List<Member> includedMembers;
+
+		/**
+		 * The nodes which are already included in the instance in any role.
+		 */
+		private BitSet usedNodes;
+
+		/**
+		 * The nodes which are connected to the seed or an included inner member.
+		 */
+		private BitSet connectedNodes;
+
+		/**
+		 * Initializes an empty scratch space.
+		 * @param vertices the number of vertices of the graph
+		 */
+		Scratch(int vertices) {
+			includedMembers = new ArrayList<>();
+			usedNodes = new BitSet(vertices);
+			connectedNodes = new BitSet(vertices);
 		}
-		return resGraphs;
 	}
 
 	/**
@@ -242,19 +811,4 @@ class PatternDetector {
 			return 2 * this.node + 3 * this.pattern; 
 		}
 	}
-
-	/**
-	 * Compares two members with each other by their score.
-	 * @author Alexis T. Bernhard
-	 */
-	private class MemberComparator implements Comparator<Member> {
-
-		@Override
-		public int compare(Member m1, Member m2) {
-			Double m1score = m1.getScore();
-			Double m2score = m2.getScore();
-			return m2score.compareTo(m1score);
-		}
-
-	}
 }
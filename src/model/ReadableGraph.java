@@ -34,9 +34,46 @@ public interface ReadableGraph {
 	
 	/**
 	 * Gets the adjacency matrix of the graph containing all edges
+	 * Warning: The matrix is materialized on demand with a size of the squared number of vertices, prefer the neighbour methods for large graphs.
 	 * @return the adjacency matrix
 	 */
 	public double[][] getAdjacencyMatrix();
+
+	/**
+	 * Gets the number of edges of the graph
+	 * @return the number of edges
+	 */
+	public int getEdgeCount();
+
+	/**
+	 * Gets the number of edges starting at a vertex
+	 * @param vertex the index of the vertex in the adjacency matrix
+	 * @return the number of outgoing edges
+	 */
+	public int getOutDegree(int vertex);
+
+	/**
+	 * Gets the destination of an edge starting at a vertex, all destinations are sorted by their index
+	 * @param vertex the index of the vertex in the adjacency matrix
+	 * @param position the position of the edge between 0 and the outgoing degree of the vertex
+	 * @return the index of the destination vertex in the adjacency matrix
+	 */
+	public int getOutNeighbour(int vertex, int position);
+
+	/**
+	 * Gets the number of edges ending at a vertex
+	 * @param vertex the index of the vertex in the adjacency matrix
+	 * @return the number of incoming edges
+	 */
+	public int getInDegree(int vertex);
+
+	/**
+	 * Gets the source of an edge ending at a vertex, all sources are sorted by their index
+	 * @param vertex the index of the vertex in the adjacency matrix
+	 * @param position the position of the edge between 0 and the incoming degree of the vertex
+	 * @return the index of the source vertex in the adjacency matrix
+	 */
+	public int getInNeighbour(int vertex, int position);
 	
 	/**
 	 * Gets the type of connection in the adjacency matrix between vertex1 and vertex 2 
@@ -1,5 +1,11 @@
 package model;
 
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.CommonOps_DDRM;
 import org.ejml.simple.SimpleMatrix;
 
 import controller.PatternType;
@@ -11,76 +17,622 @@ import controller.PatternType;
  */
 public class SimilarityAlgorithm {
 
-	private static final double TOLERANCE = 0.001;
+	/**
+	 * The default largest change of a score between two compared iterations, below which the scores are converged.
+	 */
+	static final double DEFAULT_TOLERANCE = 0.001;
+
+	/**
+	 * The default number of iterations, after which the iteration stops without convergence.
+	 */
+	static final int DEFAULT_MAX_ITERATIONS = 1000;
+
+	/**
+	 * The number of compared iterations, after which the scores are extrapolated.
+	 */
+	private static final int EXTRAPOLATION_INTERVAL = 3;
+
+	/**
+	 * The highest estimated rate of convergence, for which the scores are extrapolated. Higher rates amplify the last difference too much.
+	 */
+	private static final double MAX_EXTRAPOLATION_RATE = 0.95;
+
+	/**
+	 * The number of iterations of a warm start, after which its first even iteration has to be converged to keep its scores.
+	 */
+	private static final int WARM_START_ITERATIONS = 2;
+
+	/**
+	 * The default edge density of the system graph, below which the similarity score is calculated by iterating over the existing edges only.
+	 */
+	static final double DEFAULT_SPARSE_DENSITY = 0.05;
+
+	/**
+	 * The largest change of a score between two compared iterations, below which the scores are converged.
+	 */
+	private volatile double tolerance = DEFAULT_TOLERANCE;
 
+	/**
+	 * The number of iterations, after which the iteration stops without convergence.
+	 */
+	private volatile int maxIterations = DEFAULT_MAX_ITERATIONS;
+
+	/**
+	 * This boolean indicates if the scores are extrapolated (Aitken) to converge in fewer iterations.
+	 */
+	private volatile boolean extrapolation = false;
+
+	/**
+	 * The edge density of the system graph, below which the similarity score is calculated by iterating over the existing edges only.
+	 */
+	private double sparseDensity = DEFAULT_SPARSE_DENSITY;
+
+	/**
+	 * The representations of all edges of the last scored system graph.
+	 */
+	private SystemGraph systemCache;
+
+	/**
+	 * The representations of the replica-set edges of the last scored system graph.
+	 */
+	private SystemGraph replicaCache;
+
+	/**
+	 * This interface represents an iteration step, which calculates the unnormalized scores of the next iteration out of the current scores.
+	 * @author Alexis T. Bernhard
+	 *
+	 */
+	private interface Step {
+
+		/**
+		 * Calculates the unnormalized scores of the next iteration into a preallocated buffer.
+		 * @param res the current scores
+		 * @param out the buffer for the unnormalized scores of the next iteration, which is never the buffer of the current scores
+		 */
+		void apply(DMatrixRMaj res, DMatrixRMaj out);
+	}
+
+	/**
+	 * Sets the largest change of a score between two compared iterations, below which the scores are converged.
+	 * @param tolerance the tolerance, greater than zero
+	 */
+	void setTolerance(double tolerance) {
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Sets the number of iterations, after which the iteration stops without convergence.
+	 * @param maxIterations the iteration limit, at least two
+	 */
+	void setMaxIterations(int maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+
+	/**
+	 * Sets if the scores are extrapolated (Aitken) to converge in fewer iterations.
+	 * The extrapolated scores reach the same fixed point within the tolerance, but may differ slightly from the scores without extrapolation.
+	 * @param extrapolation true to extrapolate the scores
+	 */
+	void setExtrapolation(boolean extrapolation) {
+		this.extrapolation = extrapolation;
+	}
+
+	/**
+	 * Sets the edge density of the system graph, below which the similarity score is calculated by iterating over the existing edges only.
+	 * Both calculations reach the same scores within the tolerance, so a density above one forces the sparse and zero forces the dense calculation.
+	 * @param sparseDensity the edge density, at least zero
+	 */
+	synchronized void setSparseDensity(double sparseDensity) {
+		if (sparseDensity != this.sparseDensity) {
+			this.sparseDensity = sparseDensity;
+			// the cached representations were chosen by the previous density
+			systemCache = null;
+			replicaCache = null;
+		}
+	}
+
+	/**
+	 * Calculates the similarity scores of every vertex of the pattern and every vertex of the system graph.
+	 * @param system the system graph
+	 * @param pattern the pattern graph
+	 * @return the similarity score matrix with a row for every pattern vertex and a column for every system vertex or null if a graph is empty
+	 */
 	SimpleMatrix perform(Graph system, Graph pattern) {
+		return this.perform(system, pattern, new IterationStatistics());
+	}
+
+	/**
+	 * Calculates the similarity scores of every vertex of the pattern and every vertex of the system graph.
+	 * A system graph with several weakly connected components is split into them and the products of every component are calculated independently and in parallel.
+	 * The components share the normalization and the convergence check of every iteration, so the scores equal a single iteration over the whole graph.
+	 * Components without edges are skipped and keep a score of zero.
+	 * @param system the system graph
+	 * @param pattern the pattern graph
+	 * @param statistics the statistics to be filled with the result of the iteration
+	 * @return the similarity score matrix with a row for every pattern vertex and a column for every system vertex or null if a graph is empty
+	 */
+	SimpleMatrix perform(Graph system, Graph pattern, IterationStatistics statistics) {
+		return this.perform(system, pattern, statistics, null);
+	}
+
+	/**
+	 * Calculates the similarity scores of every vertex of the pattern and every vertex of the system graph starting from given scores instead of ones (warm start).
+	 * The limit of the even iterations depends on the start, so the start scores, which have to be converged scores of a start from ones, are only kept,
+	 * if the first even iteration differs from them by at most the tolerance. This is the case on an unchanged graph, which then takes just two iterations
+	 * and keeps exactly the scores of a start from ones. Otherwise the scores are calculated from ones again.
+	 * A component, whose start scores are all zero or not finite, starts from ones.
+	 * @param system the system graph
+	 * @param pattern the pattern graph
+	 * @param statistics the statistics to be filled with the result of the iteration
+	 * @param initial the start scores with a row for every pattern vertex and a column for every system vertex or null to start from ones
+	 * @return the similarity score matrix with a row for every pattern vertex and a column for every system vertex or null if a graph is empty
+	 */
+	SimpleMatrix perform(Graph system, Graph pattern, IterationStatistics statistics, DMatrixRMaj initial) {
 		if (system == null || pattern == null ||
 				pattern.getVertices().isEmpty() || system.getVertices().isEmpty()||
-				system.getAdjacencyMatrix() == null || pattern.getAdjacencyMatrix() == null ||
-				system.getAdjacencyMatrix().length == 0 || system.getAdjacencyMatrix()[0].length == 0 ||
-				pattern.getAdjacencyMatrix().length == 0 || pattern.getAdjacencyMatrix()[0].length == 0)
+				system.getAdjacencyList() == null || pattern.getAdjacencyList() == null ||
+				system.getAdjacencyList().getSize() == 0 || pattern.getAdjacencyList().getSize() == 0)
 			return null;
-		SimpleMatrix res = new SimpleMatrix(pattern.getVertices().size(), system.getVertices().size());
-		SimpleMatrix systemMatrix;
-		if (pattern.getPattern() == PatternType.LEADER_ELECTION) {
-			systemMatrix = new SimpleMatrix(system.getReplicaAdjacencyMatrix());
-		} else {
-			systemMatrix = new SimpleMatrix(system.getAdjacencyMatrix());
+		SystemGraph systemGraph = this.getSystemGraph(system, pattern.getPattern() == PatternType.LEADER_ELECTION);
+		DMatrixRMaj patternMatrix = new DMatrixRMaj(pattern.getAdjacencyMatrix());
+		int n = patternMatrix.numCols;
+		int m = systemGraph.getSize();
+
+		GraphComponents components = systemGraph.getComponents();
+		int[] scored = IntStream.range(0, components.size()).filter(c -> systemGraph.getSparseMatrix(c).getNonZeros() > 0).toArray();
+		if (scored.length == 0 || isZero(patternMatrix)) {
+			// without any edges all scores vanish after the first iteration, which is a trivially converged result
+			statistics.setResult(0, 0, 0.0, true, 0, scored.length);
+			return new SimpleMatrix(n, m);
 		}
-		SimpleMatrix patternMatrix = new SimpleMatrix(pattern.getAdjacencyMatrix());
 
-		res = res.plus(getSimilarityScore(systemMatrix, patternMatrix));
+		DMatrixRMaj patternTransposed = CommonOps_DDRM.transpose(patternMatrix, null);
+		Step[] steps = new Step[scored.length];
+		DMatrixRMaj[] initials = new DMatrixRMaj[scored.length];
+		int[] sizes = new int[scored.length];
+		for (int k = 0; k < scored.length; k++) {
+			int[] vertices = components.getVertices(scored[k]);
+			sizes[k] = vertices.length;
+			initials[k] = getStart(initial, vertices, n);
+			steps[k] = getStep(systemGraph, scored[k], patternMatrix, patternTransposed);
+		}
+		DMatrixRMaj[] scores = null;
+		boolean warmStart = initial != null;
+		if (warmStart) {
+			scores = this.iterate(n, sizes, initials, steps, statistics, WARM_START_ITERATIONS);
+			// scores, which moved away from the start, are calculated from ones again (see above)
+			warmStart = statistics.isConverged();
+			for (int k = 0; warmStart && k < scored.length; k++) {
+				if (initials[k] != null) {
+					scores[k] = initials[k];
+				}
+			}
+		}
+		if (!warmStart) {
+			scores = this.iterate(n, sizes, new DMatrixRMaj[scored.length], steps, statistics, this.maxIterations);
+		}
+		statistics.setWarmStart(warmStart);
+		if (scored.length == 1 && sizes[0] == m) {
+			// the only component of a connected graph keeps the order of the graph
+			return SimpleMatrix.wrap(scores[0]);
+		}
+		DMatrixRMaj res = new DMatrixRMaj(n, m);
+		for (int k = 0; k < scored.length; k++) {
+			int[] vertices = components.getVertices(scored[k]);
+			for (int i = 0; i < n; i++) {
+				for (int j = 0; j < vertices.length; j++) {
+					res.data[i * m + vertices[j]] = scores[k].data[i * vertices.length + j];
+				}
+			}
+		}
+		return SimpleMatrix.wrap(res);
+	}
 
-		return res;
+	/**
+	 * Gets the representations of the edges of a system graph, which are derived again only if the graph changed since the last detection.
+	 * The detections of all patterns share the representations of the current version of the graph.
+	 * @param system the system graph
+	 * @param replica true for the representations of the replica-set edges, false for all edges
+	 * @return the representations of the edges
+	 */
+	private synchronized SystemGraph getSystemGraph(Graph system, boolean replica) {
+		long version = system.getVersion();
+		SystemGraph cached = replica ? replicaCache : systemCache;
+		if (cached == null || !cached.represents(system, version)) {
+			cached = new SystemGraph(system, version, replica ? system.getReplicaAdjacencyList() : system.getAdjacencyList(), sparseDensity);
+			if (replica) {
+				replicaCache = cached;
+			} else {
+				systemCache = cached;
+			}
+		}
+		return cached;
 	}
 
-	private static SimpleMatrix getSimilarityScore(SimpleMatrix mxS, SimpleMatrix mxP) {
-		int m = mxS.numRows();
-		int n = mxP.numCols();
+	/**
+	 * Gets the iteration step of a component of a system graph, which iterates over the edges of sparse components only.
+	 * @param systemGraph the representations of the edges of the system graph
+	 * @param component the number of the component
+	 * @param pattern the adjacency matrix of the pattern graph
+	 * @param patternTransposed the transposed adjacency matrix of the pattern graph
+	 * @return the iteration step of the component
+	 */
+	private static Step getStep(SystemGraph systemGraph, int component, DMatrixRMaj pattern, DMatrixRMaj patternTransposed) {
+		// real service graphs have only a few edges per pod, so the dense matrix products are mostly multiplications with zero
+		if (systemGraph.isSparse(component)) {
+			return getSparseStep(systemGraph.getSparseMatrix(component), pattern, patternTransposed);
+		} else {
+			return getDenseStep(systemGraph.getDenseMatrix(component), systemGraph.getDenseTransposed(component), pattern, patternTransposed);
+		}
+	}
 
-		if (mxS.isIdentical(new SimpleMatrix(mxS.numRows(), mxS.numCols()), 0.0) || mxP.isIdentical(new SimpleMatrix(mxP.numRows(), mxP.numCols()), 0.0))
-			return new SimpleMatrix(n, m);
+	/**
+	 * Gets the iteration step with dense matrix products. The buffers of the products are allocated once for all iterations.
+	 * @param system the adjacency matrix of the system graph, which contains at least one edge
+	 * @param systemTransposed the transposed adjacency matrix of the system graph
+	 * @param pattern the adjacency matrix of the pattern graph
+	 * @param patternTransposed the transposed adjacency matrix of the pattern graph
+	 * @return the iteration step
+	 */
+	private static Step getDenseStep(DMatrixRMaj system, DMatrixRMaj systemTransposed, DMatrixRMaj pattern, DMatrixRMaj patternTransposed) {
+		int m = system.numRows;
+		int n = pattern.numCols;
+		DMatrixRMaj left = new DMatrixRMaj(n, m);
+		DMatrixRMaj right = new DMatrixRMaj(n, m);
+		return (res, out) -> {
+			CommonOps_DDRM.mult(pattern, res, left);
+			CommonOps_DDRM.mult(left, systemTransposed, out);
+			CommonOps_DDRM.mult(patternTransposed, res, left);
+			CommonOps_DDRM.mult(left, system, right);
+			CommonOps_DDRM.addEquals(out, right);
+		};
+	}
 
-		SimpleMatrix res = new SimpleMatrix(n, m);
-		res.fill(1.0);
-		SimpleMatrix prevRes = new SimpleMatrix(n, m);
-		boolean flag = false;
+	/**
+	 * Gets the same iteration step as the dense variant, but multiplies the score matrix with the system matrix by iterating over the edges of the system graph only.
+	 * An iteration costs O(p * e + p * p * n) instead of O(p * n * n) with p pattern vertices, n system vertices and e system edges.
+	 * The buffers of the products are allocated once for all iterations.
+	 * @param mxS the sparse adjacency matrix of the system graph, which contains at least one edge
+	 * @param pattern the adjacency matrix of the pattern graph
+	 * @param patternTransposed the transposed adjacency matrix of the pattern graph
+	 * @return the iteration step
+	 */
+	private static Step getSparseStep(SparseMatrix mxS, DMatrixRMaj pattern, DMatrixRMaj patternTransposed) {
+		int m = mxS.getSize();
+		int n = pattern.numCols;
+		DMatrixRMaj product = new DMatrixRMaj(n, m);
+		DMatrixRMaj right = new DMatrixRMaj(n, m);
+		return (res, out) -> {
+			multTransposed(res, mxS, product);
+			CommonOps_DDRM.mult(pattern, product, out);
+			mult(res, mxS, product);
+			CommonOps_DDRM.mult(patternTransposed, product, right);
+			CommonOps_DDRM.addEquals(out, right);
+		};
+	}
+
+	/**
+	 * Iterates the normalized scores of the components until the even iterations converge or the iteration limit is reached.
+	 * The steps of the components are applied in parallel, but every iteration is normalized by the largest column sum of all components
+	 * and the convergence is checked by the largest change of all components, which equals a single iteration over the whole graph.
+	 * The odd and the even iterations converge to different limits, so only the even iterations are compared.
+	 * With extrapolation enabled, every third comparison extrapolates the last three even iterations by Aitken's delta squared process.
+	 * The iterations rotate through a fixed set of score buffers per component, so no matrix is allocated per iteration:
+	 * the current scores, the last even iteration, the even iteration before it (just for the extrapolation) and the buffer of the next iteration.
+	 * The first even iteration of a component with start scores is compared with them instead of zero.
+	 * @param n the number of pattern vertices
+	 * @param sizes the number of vertices of every component
+	 * @param initials the start scores of every component or null to start from ones
+	 * @param steps the steps to calculate the unnormalized scores of the next iteration of every component
+	 * @param statistics the statistics to be filled with the result of the iteration
+	 * @param maxIterations the number of iterations, after which the iteration stops without convergence
+	 * @return the scores of the last even iteration of every component
+	 */
+	private DMatrixRMaj[] iterate(int n, int[] sizes, DMatrixRMaj[] initials, Step[] steps, IterationStatistics statistics, int maxIterations) {
+		long start = System.nanoTime();
+		double tolerance = this.tolerance;
+		boolean extrapolation = this.extrapolation;
+
+		int count = steps.length;
+		DMatrixRMaj[][] buffers = new DMatrixRMaj[count][extrapolation ? 4 : 3];
+		double[][] columnSums = new double[count][];
+		for (int c = 0; c < count; c++) {
+			for (int b = 0; b < buffers[c].length; b++) {
+				buffers[c][b] = new DMatrixRMaj(n, sizes[c]);
+			}
+			columnSums[c] = new double[sizes[c]];
+			if (initials[c] == null) {
+				CommonOps_DDRM.fill(buffers[c][0], 1.0);
+			} else {
+				buffers[c][0].set(initials[c]);
+				buffers[c][1].set(initials[c]);
+			}
+		}
+		double[] norms = new double[count];
+		double[] differences = new double[count];
+		int res = 0; // the buffer of the current scores
+		int prevRes = 1; // the buffer of the last even iteration, initially zero or the start scores
+		int olderRes = -1; // the buffer of the even iteration before the previous one, just kept for the extrapolation
+		int compared = 0;
+		int extrapolations = 0;
+		double residual = Double.NaN;
+		boolean converged = false;
 		int i = 0;
 
-		while(!flag) {
-			SimpleMatrix temp1 = mxP.mult(res).mult(mxS.transpose());
-			SimpleMatrix temp2 = mxP.transpose().mult(res).mult(mxS);
-			SimpleMatrix temp = temp1.plus(temp2);
-			res = temp.divide(norm1(temp));
+		while (true) {
+			int current = res;
+			int next = free(buffers[0].length, res, prevRes, olderRes);
+			forEach(count, c -> {
+				steps[c].apply(buffers[c][current], buffers[c][next]);
+				norms[c] = norm1(buffers[c][next], columnSums[c]);
+			});
+			double norm = max(norms);
+			forEach(count, c -> CommonOps_DDRM.divide(buffers[c][next], norm));
+			res = next;
 			i++;
 
 			if (i % 2 == 0) {
-				flag = convergence(res, prevRes);
+				int previous = prevRes;
+				forEach(count, c -> differences[c] = maxDifference(buffers[c][next], buffers[c][previous]));
+				residual = max(differences);
+				converged = residual <= tolerance;
+				if (converged || i >= maxIterations) {
+					break;
+				}
+				compared++;
+				if (extrapolation && olderRes >= 0 && compared % EXTRAPOLATION_INTERVAL == 0 && extrapolate(buffers, olderRes, prevRes, res, columnSums)) {
+					extrapolations++;
+					olderRes = -1;
+				} else if (extrapolation) {
+					olderRes = prevRes;
+				}
 				prevRes = res;
 			}
 		}
+		statistics.setResult(i, extrapolations, residual, converged, System.nanoTime() - start, count);
+		DMatrixRMaj[] scores = new DMatrixRMaj[count];
+		for (int c = 0; c < count; c++) {
+			scores[c] = buffers[c][res];
+		}
+		return scores;
+	}
+
+	/**
+	 * Performs an action for every component, in parallel if there are several components.
+	 * @param count the number of components
+	 * @param action the action, which gets the number of the component
+	 */
+	private static void forEach(int count, IntConsumer action) {
+		if (count == 1) {
+			action.accept(0);
+		} else {
+			IntStream.range(0, count).parallel().forEach(action);
+		}
+	}
+
+	/**
+	 * Gets the largest of the given values.
+	 * @param values the values
+	 * @return the largest value or NaN if a value is not a number
+	 */
+	private static double max(double[] values) {
+		double res = Double.NEGATIVE_INFINITY;
+		for (double value : values) {
+			res = Math.max(res, value);
+		}
 		return res;
 	}
 
-	private static boolean convergence(SimpleMatrix mxA, SimpleMatrix mxB) {
-		for (int i = 0; i < mxA.numRows(); i++) {
-			for (int j = 0; j < mxA.numCols(); j++) {
-				if(Math.abs(mxA.get(i, j) - mxB.get(i, j)) > TOLERANCE)
-					return false;
+	/**
+	 * Gets the start scores of a component out of the start scores of the whole system graph.
+	 * @param initial the start scores of the whole system graph or null
+	 * @param vertices the indices of the vertices of the component
+	 * @param n the number of pattern vertices
+	 * @return the start scores of the component or null to start from ones, if the scores are all zero or not finite
+	 */
+	private static DMatrixRMaj getStart(DMatrixRMaj initial, int[] vertices, int n) {
+		if (initial == null) {
+			return null;
+		}
+		int m = initial.numCols;
+		DMatrixRMaj res = new DMatrixRMaj(n, vertices.length);
+		double sum = 0;
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < vertices.length; j++) {
+				double score = initial.data[i * m + vertices[j]];
+				res.data[i * vertices.length + j] = score;
+				sum += score;
+			}
+		}
+		if (!(sum > 0) || Double.isInfinite(sum)) {
+			return null;
+		}
+		return res;
+	}
+
+	/**
+	 * Gets the index of a buffer, which is not used by any of the given scores.
+	 * @param buffers the number of buffers of the iteration
+	 * @param res the buffer of the current scores
+	 * @param prevRes the buffer of the last even iteration
+	 * @param olderRes the buffer of the even iteration before the last one or -1
+	 * @return the index of the free buffer
+	 */
+	private static int free(int buffers, int res, int prevRes, int olderRes) {
+		for (int b = 0; b < buffers; b++) {
+			if (b != res && b != prevRes && b != olderRes) {
+				return b;
+			}
+		}
+		throw new IllegalStateException("No free buffer for the similarity iteration.");
+	}
+
+	/**
+	 * Extrapolates three consecutive even iterations by Aitken's delta squared process and writes the normalized result into the last iteration.
+	 * The process is applied to the scores of all components together instead of every element, which keeps it stable for small differences:
+	 * the ratio r of the last two differences estimates the linear rate of convergence, so the remaining geometric series r / (1 - r) of the last difference is added.
+	 * @param buffers the score buffers of every component
+	 * @param x0 the buffer of the first iteration
+	 * @param x1 the buffer of the second iteration
+	 * @param x2 the buffer of the third iteration, which is replaced by the extrapolated scores
+	 * @param columnSums the buffers for the column sums of the scores of every component
+	 * @return true if the scores were extrapolated, false if the iterations don't converge linearly and the scores were kept
+	 */
+	private static boolean extrapolate(DMatrixRMaj[][] buffers, int x0, int x1, int x2, double[][] columnSums) {
+		double previous = 0;
+		double last = 0;
+		for (DMatrixRMaj[] component : buffers) {
+			double[] a = component[x0].data;
+			double[] b = component[x1].data;
+			double[] c = component[x2].data;
+			int length = component[x2].getNumElements();
+			for (int k = 0; k < length; k++) {
+				previous += (b[k] - a[k]) * (b[k] - a[k]);
+				last += (c[k] - b[k]) * (c[k] - b[k]);
+			}
+		}
+		double rate = Math.sqrt(last / previous);
+		if (!(rate > 0 && rate < MAX_EXTRAPOLATION_RATE)) {
+			return false;
+		}
+		double factor = rate / (1 - rate);
+
+		// the norm of the extrapolated scores is calculated before they are written, so the scores are kept if it fails
+		double norm = 0;
+		for (int i = 0; i < buffers.length; i++) {
+			double[] b = buffers[i][x1].data;
+			double[] c = buffers[i][x2].data;
+			int length = buffers[i][x2].getNumElements();
+			int m = buffers[i][x2].numCols;
+			Arrays.fill(columnSums[i], 0);
+			for (int k = 0; k < length; k++) {
+				columnSums[i][k % m] += Math.max(0, c[k] + factor * (c[k] - b[k]));
+			}
+			for (double sum : columnSums[i]) {
+				norm = Math.max(norm, sum);
+			}
+		}
+		if (!(norm > 0) || Double.isInfinite(norm)) {
+			return false;
+		}
+		for (DMatrixRMaj[] component : buffers) {
+			double[] b = component[x1].data;
+			double[] c = component[x2].data;
+			int length = component[x2].getNumElements();
+			for (int k = 0; k < length; k++) {
+				c[k] = Math.max(0, c[k] + factor * (c[k] - b[k])) / norm;
 			}
 		}
 		return true;
 	}
 
-	public static double norm1(SimpleMatrix mxM) {
-		double f = 0;
-		for (int j = 0; j < mxM.numCols(); j++) {
-			double s = 0;
-			for (int i = 0; i < mxM.numRows(); i++) {
-				s += Math.abs(mxM.get(i, j));
+	/**
+	 * Multiplies a dense matrix with a sparse matrix (mxA * mxS) by summing up the entries of the incoming edges of every column of the sparse matrix.
+	 * @param mxA the dense matrix with as many columns as the sparse matrix
+	 * @param mxS the sparse matrix
+	 * @param res the buffer for the product of both matrices
+	 */
+	private static void mult(DMatrixRMaj mxA, SparseMatrix mxS, DMatrixRMaj res) {
+		int m = mxS.getSize();
+		double[] a = mxA.data;
+		double[] r = res.data;
+		int[] pointers = mxS.getColumnPointers();
+		int[] indices = mxS.getRowIndices();
+		for (int row = 0; row < mxA.numRows; row++) {
+			int offset = row * m;
+			for (int col = 0; col < m; col++) {
+				double sum = 0;
+				for (int k = pointers[col]; k < pointers[col + 1]; k++) {
+					sum += a[offset + indices[k]];
+				}
+				r[offset + col] = sum;
+			}
+		}
+	}
+
+	/**
+	 * Multiplies a dense matrix with the transposed sparse matrix (mxA * mxS^T) by summing up the entries of the outgoing edges of every row of the sparse matrix.
+	 * @param mxA the dense matrix with as many columns as the sparse matrix
+	 * @param mxS the sparse matrix
+	 * @param res the buffer for the product of the dense matrix and the transposed sparse matrix
+	 */
+	private static void multTransposed(DMatrixRMaj mxA, SparseMatrix mxS, DMatrixRMaj res) {
+		int m = mxS.getSize();
+		double[] a = mxA.data;
+		double[] r = res.data;
+		int[] pointers = mxS.getRowPointers();
+		int[] indices = mxS.getColumnIndices();
+		for (int row = 0; row < mxA.numRows; row++) {
+			int offset = row * m;
+			for (int col = 0; col < m; col++) {
+				double sum = 0;
+				for (int k = pointers[col]; k < pointers[col + 1]; k++) {
+					sum += a[offset + indices[k]];
+				}
+				r[offset + col] = sum;
+			}
+		}
+	}
+
+	/**
+	 * Gets the largest elementwise difference of two matrices with the same dimensions.
+	 * @param mxA the first matrix
+	 * @param mxB the second matrix
+	 * @return the largest absolute difference of two elements, elements which are not a number are ignored
+	 */
+	private static double maxDifference(DMatrixRMaj mxA, DMatrixRMaj mxB) {
+		double[] a = mxA.data;
+		double[] b = mxB.data;
+		int length = mxA.getNumElements();
+		double max = 0;
+		for (int k = 0; k < length; k++) {
+			double diff = Math.abs(a[k] - b[k]);
+			if (diff > max) {
+				max = diff;
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Checks if all elements of a matrix are zero.
+	 * @param mxM the matrix
+	 * @return true if all elements are zero
+	 */
+	private static boolean isZero(DMatrixRMaj mxM) {
+		int length = mxM.getNumElements();
+		for (int k = 0; k < length; k++) {
+			if (mxM.data[k] != 0) {
+				return false;
 			}
-			f = Math.max(f, s);
+		}
+		return true;
+	}
+
+	/**
+	 * Calculates the maximum absolute column sum of a matrix (1-norm) by summing up the rows in memory order.
+	 * @param mxM the matrix
+	 * @param columnSums the buffer for the column sums with an entry for every column
+	 * @return the 1-norm of the matrix
+	 */
+	private static double norm1(DMatrixRMaj mxM, double[] columnSums) {
+		int m = mxM.numCols;
+		double[] data = mxM.data;
+		Arrays.fill(columnSums, 0, m, 0);
+		for (int i = 0; i < mxM.numRows; i++) {
+			int offset = i * m;
+			for (int j = 0; j < m; j++) {
+				columnSums[j] += Math.abs(data[offset + j]);
+			}
+		}
+		double f = 0;
+		for (int j = 0; j < m; j++) {
+			f = Math.max(f, columnSums[j]);
 		}
 		return f;
 	}
+
+	public static double norm1(SimpleMatrix mxM) {
+		return norm1(mxM.getDDRM(), new double[mxM.numCols()]);
+	}
 }
@@ -0,0 +1,119 @@
+package model;
+
+/**
+ * This class represents a square binary matrix (e.g. the adjacency matrix of a graph) in a compressed sparse layout.
+ * The matrix is stored twice, row-wise (CSR) to iterate over all outgoing edges of a vertex and column-wise (CSC) to iterate over all incoming edges of a vertex.
+ * Every entry of the matrix is an edge with the weight 1.0.
+ * @author Alexis T. Bernhard
+ *
+ */
+class SparseMatrix {
+
+	/**
+	 * The number of rows and columns of the matrix.
+	 */
+	private int size;
+
+	/**
+	 * The start position of every row in the column index array, the last entry contains the number of non zero entries.
+	 */
+	private int[] rowPointers;
+
+	/**
+	 * The column indices of all non zero entries ordered by their row.
+	 */
+	private int[] columnIndices;
+
+	/**
+	 * The start position of every column in the row index array, the last entry contains the number of non zero entries.
+	 */
+	private int[] columnPointers;
+
+	/**
+	 * The row indices of all non zero entries ordered by their column.
+	 */
+	private int[] rowIndices;
+
+	/**
+	 * Initializes a sparse matrix by compressing the sorted neighbours of an adjacency list.
+	 * @param list the adjacency list to compress
+	 */
+	SparseMatrix(AdjacencyList list) {
+		size = list.getSize();
+		rowPointers = new int[size + 1];
+		columnPointers = new int[size + 1];
+		for (int i = 0; i < size; i++) {
+			rowPointers[i + 1] = rowPointers[i] + list.getOutDegree(i);
+			columnPointers[i + 1] = columnPointers[i] + list.getInDegree(i);
+		}
+		columnIndices = new int[rowPointers[size]];
+		rowIndices = new int[columnPointers[size]];
+		for (int i = 0; i < size; i++) {
+			for (int k = 0; k < list.getOutDegree(i); k++) {
+				columnIndices[rowPointers[i] + k] = list.getOutNeighbour(i, k);
+			}
+			for (int k = 0; k < list.getInDegree(i); k++) {
+				rowIndices[columnPointers[i] + k] = list.getInNeighbour(i, k);
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of rows and columns of the matrix.
+	 * @return the size of the matrix
+	 */
+	int getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets the number of non zero entries of the matrix.
+	 * @return the number of non zero entries
+	 */
+	int getNonZeros() {
+		return rowPointers[size];
+	}
+
+	/**
+	 * Gets the share of non zero entries in the matrix.
+	 * @return the density of the matrix between 0.0 and 1.0
+	 */
+	double getDensity() {
+		if (size == 0) {
+			return 0.0;
+		}
+		return (double) getNonZeros() / ((double) size * size);
+	}
+
+	/**
+	 * Gets the start position of every row in the column index array.
+	 * @return the row pointers of the compressed row layout
+	 */
+	int[] getRowPointers() {
+		return rowPointers;
+	}
+
+	/**
+	 * Gets the column indices of all non zero entries ordered by their row.
+	 * @return the column indices of the compressed row layout
+	 */
+	int[] getColumnIndices() {
+		return columnIndices;
+	}
+
+	/**
+	 * Gets the start position of every column in the row index array.
+	 * @return the column pointers of the compressed column layout
+	 */
+	int[] getColumnPointers() {
+		return columnPointers;
+	}
+
+	/**
+	 * Gets the row indices of all non zero entries ordered by their column.
+	 * @return the row indices of the compressed column layout
+	 */
+	int[] getRowIndices() {
+		return rowIndices;
+	}
+}
@@ -0,0 +1,144 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.CommonOps_DDRM;
+
+/**
+ * This class contains the representations of the edges of a system graph, which the similarity algorithm derives before it scores a pattern.
+ * The representations only depend on the edges, so they are derived once per version of the graph and shared by the detections of all patterns.
+ * Every weakly connected component is kept as sparse matrix with its degrees and, if it is dense, as dense matrix with its transpose.
+ * A system graph is immutable and can be read by concurrent detections.
+ * @author Alexis T. Bernhard
+ *
+ */
+class SystemGraph {
+
+	/**
+	 * The graph, whose edges are represented.
+	 */
+	private Graph graph;
+
+	/**
+	 * The version of the graph, when the representations were derived.
+	 */
+	private long version;
+
+	/**
+	 * The number of vertices of the graph.
+	 */
+	private int size;
+
+	/**
+	 * The weakly connected components of the edges.
+	 */
+	private GraphComponents components;
+
+	/**
+	 * The sparse matrix of every component.
+	 */
+	private List<SparseMatrix> sparseMatrices;
+
+	/**
+	 * The dense matrix of every dense component or null for a sparse component.
+	 */
+	private List<DMatrixRMaj> denseMatrices;
+
+	/**
+	 * The transposed dense matrix of every dense component or null for a sparse component.
+	 */
+	private List<DMatrixRMaj> denseTransposed;
+
+	/**
+	 * Derives the representations of the edges of a system graph.
+	 * @param graph the graph, whose edges are represented
+	 * @param version the version of the graph, which has to be read before the edges
+	 * @param edges the edges of the graph (e.g. the replica-set edges)
+	 * @param sparseDensity the edge density, below which a component is kept as sparse matrix only
+	 */
+	SystemGraph(Graph graph, long version, AdjacencyList edges, double sparseDensity) {
+		this.graph = graph;
+		this.version = version;
+		size = edges.getSize();
+		components = new GraphComponents(edges);
+		sparseMatrices = new ArrayList<>(components.size());
+		denseMatrices = new ArrayList<>(components.size());
+		denseTransposed = new ArrayList<>(components.size());
+		for (int c = 0; c < components.size(); c++) {
+			SparseMatrix sparse = new SparseMatrix(components.getEdges(c));
+			sparseMatrices.add(sparse);
+			if (sparse.getDensity() < sparseDensity) {
+				denseMatrices.add(null);
+				denseTransposed.add(null);
+			} else {
+				DMatrixRMaj dense = new DMatrixRMaj(components.getEdges(c).toMatrix());
+				denseMatrices.add(dense);
+				denseTransposed.add(CommonOps_DDRM.transpose(dense, null));
+			}
+		}
+	}
+
+	/**
+	 * Checks if the representations belong to the current version of a graph.
+	 * @param graph the graph
+	 * @param version the current version of the graph
+	 * @return true if the representations are up to date
+	 */
+	boolean represents(Graph graph, long version) {
+		return this.graph == graph && this.version == version;
+	}
+
+	/**
+	 * Gets the number of vertices of the graph.
+	 * @return the number of vertices
+	 */
+	int getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets the weakly connected components of the edges.
+	 * @return the components
+	 */
+	GraphComponents getComponents() {
+		return components;
+	}
+
+	/**
+	 * Gets the sparse matrix of a component.
+	 * @param component the number of the component
+	 * @return the sparse matrix
+	 */
+	SparseMatrix getSparseMatrix(int component) {
+		return sparseMatrices.get(component);
+	}
+
+	/**
+	 * Checks if a component is kept as sparse matrix only.
+	 * @param component the number of the component
+	 * @return true if the component is sparse
+	 */
+	boolean isSparse(int component) {
+		return denseMatrices.get(component) == null;
+	}
+
+	/**
+	 * Gets the dense matrix of a dense component.
+	 * @param component the number of the component
+	 * @return the dense matrix or null for a sparse component
+	 */
+	DMatrixRMaj getDenseMatrix(int component) {
+		return denseMatrices.get(component);
+	}
+
+	/**
+	 * Gets the transposed dense matrix of a dense component.
+	 * @param component the number of the component
+	 * @return the transposed dense matrix or null for a sparse component
+	 */
+	DMatrixRMaj getDenseTransposed(int component) {
+		return denseTransposed.get(component);
+	}
+}
@@ -13,11 +13,11 @@ class TestApiGatewayDetector {
 		List<Graph> graphBuf = new ArrayList<>();
 		List<ReadableGraph> resGraphs = new ArrayList<>();
 		List<Pair<Integer, Integer>> edgesBuffer = new ArrayList<>();
-		double[][] edges = graph.getAdjacencyMatrix();
-		for (int i = 0; i < edges.length; i++) {
+		for (int i = 0; i < graph.getVertices().size(); i++) {
 			boolean pattern = false;
-			for (int j = 0; j < edges[i].length; j++) {
-				if (edges[i][j] == 1 && !pattern) {
+			for (int k = 0; k < graph.getOutDegree(i); k++) {
+				int j = graph.getOutNeighbour(i, k);
+				if (!pattern) {
 					graphBuf.add(new Graph());
 					Graph resGraph = graphBuf.get(graphBuf.size() - 1);
 					resGraph.setPattern(PatternType.API_GATEWAY);
@@ -31,7 +31,7 @@ class TestApiGatewayDetector {
 					resGraph.addVertex(callee);
 					edgesBuffer.add(new Pair<Integer, Integer>(vertex.getIndex(), callee.getIndex()));
 					pattern = true;
-				} else if (edges[i][j] == 1) {
+				} else {
 					Graph resGraph = graphBuf.get(graphBuf.size() - 1);
 					ModifiableVertex callee = graph.getVertexByIndex(j);
 					callee.setRole("service");
@@ -39,7 +39,7 @@ class TestApiGatewayDetector {
 					resGraph.addVertex(callee);
 					edgesBuffer.add(new Pair<Integer, Integer>(resGraph.getVertexByName(graph.getVertexByIndex(i).getName()).getIndex(), callee.getIndex()));
 				}
-				if (pattern && j == edges[i].length - 1) {
+				if (pattern && k == graph.getOutDegree(i) - 1) {
 					Graph resGraph = graphBuf.get(graphBuf.size() - 1);
 					resGraph.generateAdjacencyMatrices();
 					for (Pair<Integer, Integer> edge : edgesBuffer) {
@@ -0,0 +1,342 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import controller.GraphException;
+import controller.PatternType;
+
+/**
+ * This class generates seeded synthetic graphs with microservice topologies to test the detection at scale.
+ * A topology contains api gateways with fan-out, replica sets of leader elections and scatter gather trees, which are placed on random vertices and connected by random noise edges.
+ * The generator records the placement of every pattern, so the detected instances can be compared with the ground truth.
+ * The same seed and settings always produce the same graph.
+ * @author Alexis T. Bernhard
+ *
+ */
+class TopologyGenerator {
+
+	/**
+	 * This class represents the placement of a pattern in a generated graph, which maps every role of the pattern to the names of its vertices.
+	 * @author Alexis T. Bernhard
+	 *
+	 */
+	static class Placement {
+
+		/**
+		 * The type of the placed pattern.
+		 */
+		private PatternType patternType;
+
+		/**
+		 * A map of all roles of the pattern to the names of the vertices taking the role.
+		 */
+		private Map<String, List<String>> members;
+
+		/**
+		 * Initializes a placement of a pattern without any members.
+		 * @param patternType the type of the placed pattern
+		 */
+		Placement(PatternType patternType) {
+			this.patternType = patternType;
+			members = new LinkedHashMap<>();
+			for (String role : patternType.getRoles()) {
+				members.put(role, new ArrayList<>());
+			}
+		}
+
+		/**
+		 * Gets the type of the placed pattern.
+		 * @return the pattern type
+		 */
+		PatternType getPatternType() {
+			return patternType;
+		}
+
+		/**
+		 * Gets the names of all vertices taking a role of the pattern.
+		 * @param role the role of the pattern
+		 * @return the vertex names
+		 */
+		List<String> getMembers(String role) {
+			return Collections.unmodifiableList(members.getOrDefault(role, Collections.emptyList()));
+		}
+
+		/**
+		 * Gets the name of the vertex taking the first role of the pattern (e.g. the api gateway), which is the seed of a detected instance.
+		 * @return the vertex name of the seed
+		 */
+		String getSeed() {
+			return members.get(patternType.getRoles()[0]).get(0);
+		}
+
+		/**
+		 * Adds a vertex taking a role of the pattern.
+		 * @param role the index of the role of the pattern
+		 * @param name the name of the vertex
+		 */
+		private void addMember(int role, String name) {
+			members.get(patternType.getRoles()[role]).add(name);
+		}
+	}
+
+	/**
+	 * The seed of the random generator.
+	 */
+	private long seed;
+
+	/**
+	 * The number of vertices of the generated graph.
+	 */
+	private int vertices = 1000;
+
+	/**
+	 * The average number of outgoing noise edges of a vertex.
+	 */
+	private double noiseDegree = 2.0;
+
+	/**
+	 * The number of api gateways.
+	 */
+	private int gateways = 2;
+
+	/**
+	 * The number of clients calling an api gateway.
+	 */
+	private int gatewayClients = 2;
+
+	/**
+	 * The number of services an api gateway fans out to.
+	 */
+	private int gatewayServices = 3;
+
+	/**
+	 * The number of scatter gather trees.
+	 */
+	private int scatterGathers = 2;
+
+	/**
+	 * The number of children of the root of a scatter gather tree.
+	 */
+	private int scatterChildren = 3;
+
+	/**
+	 * The number of replica sets with a leader election.
+	 */
+	private int leaders = 2;
+
+	/**
+	 * The number of followers of a leader.
+	 */
+	private int followers = 2;
+
+	/**
+	 * The placements of all patterns of the last generated graph.
+	 */
+	private List<Placement> placements;
+
+	/**
+	 * Initializes a generator with the default settings: 1000 vertices, two noise edges per vertex and two instances of every pattern.
+	 * @param seed the seed of the random generator
+	 */
+	TopologyGenerator(long seed) {
+		this.seed = seed;
+		placements = new ArrayList<>();
+	}
+
+	/**
+	 * Sets the number of vertices of the generated graph.
+	 * @param vertices the number of vertices
+	 */
+	void setVertices(int vertices) {
+		this.vertices = vertices;
+	}
+
+	/**
+	 * Sets the average number of outgoing noise edges of a vertex.
+	 * @param noiseDegree the average number of noise edges
+	 */
+	void setNoiseDegree(double noiseDegree) {
+		this.noiseDegree = noiseDegree;
+	}
+
+	/**
+	 * Sets the number and the size of the api gateways.
+	 * @param gateways the number of api gateways
+	 * @param clients the number of clients calling an api gateway
+	 * @param services the number of services an api gateway fans out to
+	 */
+	void setGateways(int gateways, int clients, int services) {
+		this.gateways = gateways;
+		this.gatewayClients = clients;
+		this.gatewayServices = services;
+	}
+
+	/**
+	 * Sets the number and the size of the scatter gather trees.
+	 * @param scatterGathers the number of scatter gather trees
+	 * @param children the number of children of the root of a tree
+	 */
+	void setScatterGathers(int scatterGathers, int children) {
+		this.scatterGathers = scatterGathers;
+		this.scatterChildren = children;
+	}
+
+	/**
+	 * Sets the number and the size of the replica sets with a leader election.
+	 * @param leaders the number of replica sets
+	 * @param followers the number of followers of a leader
+	 */
+	void setLeaders(int leaders, int followers) {
+		this.leaders = leaders;
+		this.followers = followers;
+	}
+
+	/**
+	 * Gets the placements of all patterns of the last generated graph, which is the ground truth of a detection.
+	 * @return the list of placements
+	 */
+	List<Placement> getPlacements() {
+		return Collections.unmodifiableList(placements);
+	}
+
+	/**
+	 * Generates a graph with the set topology. The vertex index of every vertex equals its position in the vertex list.
+	 * Noise edges never touch the seed of a pattern (e.g. the api gateway), so every placed pattern keeps its shape.
+	 * @return the generated graph
+	 * @throws GraphException thrown if the patterns require more vertices than the graph contains
+	 */
+	Graph generate() throws GraphException {
+		int required = gateways * (1 + gatewayClients + gatewayServices) + scatterGathers * (2 + scatterChildren) + leaders * (1 + followers);
+		if (required > vertices) {
+			throw new GraphException("The generation of the graph failed: The patterns require " + required + " vertices, but the graph contains " + vertices + " vertices.");
+		}
+		Random random = new Random(seed);
+		placements = new ArrayList<>();
+
+		// place the patterns on random positions of the vertex list
+		int[] order = new int[vertices];
+		for (int i = 0; i < vertices; i++) {
+			order[i] = i;
+		}
+		for (int i = vertices - 1; i > 0; i--) {
+			int k = random.nextInt(i + 1);
+			int tmp = order[i];
+			order[i] = order[k];
+			order[k] = tmp;
+		}
+		String[] names = new String[vertices];
+		boolean[] seeds = new boolean[vertices];
+		List<int[]> edges = new ArrayList<>();
+		int next = 0;
+		for (int g = 0; g < gateways; g++) {
+			Placement placement = new Placement(PatternType.API_GATEWAY);
+			int gateway = order[next++];
+			names[gateway] = "gateway-" + g;
+			seeds[gateway] = true;
+			placement.addMember(0, names[gateway]);
+			for (int k = 0; k < gatewayClients; k++) {
+				int client = order[next++];
+				names[client] = "gateway-" + g + "-client-" + k;
+				placement.addMember(1, names[client]);
+				edges.add(new int[] {client, gateway, 0});
+			}
+			for (int k = 0; k < gatewayServices; k++) {
+				int service = order[next++];
+				names[service] = "gateway-" + g + "-service-" + k;
+				placement.addMember(2, names[service]);
+				edges.add(new int[] {gateway, service, 0});
+			}
+			placements.add(placement);
+		}
+		for (int s = 0; s < scatterGathers; s++) {
+			Placement placement = new Placement(PatternType.SCATTER_GATHER);
+			int root = order[next++];
+			names[root] = "scatter-" + s + "-root";
+			seeds[root] = true;
+			placement.addMember(0, names[root]);
+			int client = order[next++];
+			names[client] = "scatter-" + s + "-client";
+			placement.addMember(1, names[client]);
+			edges.add(new int[] {client, root, 0});
+			for (int k = 0; k < scatterChildren; k++) {
+				int child = order[next++];
+				names[child] = "scatter-" + s + "-child-" + k;
+				placement.addMember(2, names[child]);
+				edges.add(new int[] {root, child, 0});
+			}
+			placements.add(placement);
+		}
+		for (int l = 0; l < leaders; l++) {
+			Placement placement = new Placement(PatternType.LEADER_ELECTION);
+			int leader = order[next++];
+			names[leader] = "replica-" + l + "-leader";
+			seeds[leader] = true;
+			placement.addMember(0, names[leader]);
+			for (int k = 0; k < followers; k++) {
+				int follower = order[next++];
+				names[follower] = "replica-" + l + "-follower-" + k;
+				placement.addMember(1, names[follower]);
+				edges.add(new int[] {leader, follower, 1});
+			}
+			placements.add(placement);
+		}
+
+		Graph graph = new Graph();
+		for (int i = 0; i < vertices; i++) {
+			if (names[i] == null) {
+				names[i] = "service-" + i;
+			}
+			graph.addVertex(new Vertex(names[i], i));
+		}
+		graph.generateAdjacencyMatrices();
+		for (int[] edge : edges) {
+			graph.addEdgeByIndex(edge[0], edge[1], edge[2]);
+		}
+
+		// add the noise edges between all vertices except the seeds of the patterns
+		int candidates = vertices - gateways - scatterGathers - leaders;
+		long noiseEdges = Math.min(Math.round(vertices * noiseDegree), (long) candidates * (candidates - 1) / 2);
+		long added = 0;
+		while (added < noiseEdges) {
+			int source = random.nextInt(vertices);
+			int dest = random.nextInt(vertices);
+			if (source != dest && !seeds[source] && !seeds[dest] && graph.getConnectionByIndex(source, dest) == 0) {
+				graph.addEdgeByIndex(source, dest, 0);
+				added++;
+			}
+		}
+		return graph;
+	}
+
+	/**
+	 * Counts the placed patterns of the last generated graph, which are found by a detection.
+	 * A placement is found, if the seed of the placement is the seed of a detected instance of the same pattern type.
+	 * @param instances the detected instances
+	 * @return the number of found placements
+	 */
+	int countFound(List<ReadableGraph> instances) {
+		Set<String> detectedSeeds = new HashSet<>();
+		for (ReadableGraph instance : instances) {
+			String seedRole = instance.getPattern().getRoles()[0];
+			for (ReadableVertex vertex : instance.getVertices()) {
+				if (seedRole.equals(vertex.getRole())) {
+					detectedSeeds.add(instance.getPattern() + "#" + vertex.getName());
+				}
+			}
+		}
+		int found = 0;
+		for (Placement placement : placements) {
+			if (detectedSeeds.contains(placement.getPatternType() + "#" + placement.getSeed())) {
+				found++;
+			}
+		}
+		return found;
+	}
+}
@@ -1,7 +1,14 @@
 package model;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import controller.GraphException;
 import io.kubernetes.client.openapi.ApiException;
@@ -12,46 +19,236 @@ import io.kubernetes.client.openapi.ApiException;
  *
  */
 class Transformator {
-	
+
+	/**
+	 * The default number of namespaces, which are scanned concurrently.
+	 */
+	static final int DEFAULT_NAMESPACE_THREADS = 4;
+
+	/**
+	 * This class contains the subgraph of a single namespace and the pods of the subgraph.
+	 * @author Alexis T. Bernhard
+	 *
+	 */
+	private static class NamespaceGraph {
+
+		/**
+		 * The subgraph containing all pods and services of the namespace.
+		 */
+		private Graph graph;
+
+		/**
+		 * A map of all pods of the namespace, which maps a pod id (made out of the pod ip (veth0) and the node name) to the pod name.
+		 */
+		private Map<String, String> pods;
+
+		/**
+		 * Initializes the subgraph of a namespace.
+		 * @param graph the subgraph containing all pods and services of the namespace
+		 * @param pods the map of all pods of the namespace
+		 */
+		NamespaceGraph(Graph graph, Map<String, String> pods) {
+			this.graph = graph;
+			this.pods = pods;
+		}
+	}
+
+	/**
+	 * The bounded pool of threads, which scans the namespaces of the cluster concurrently.
+	 */
+	private ExecutorService namespaceThreads = createNamespaceThreads(DEFAULT_NAMESPACE_THREADS);
+
+	/**
+	 * The number of threads of the namespace thread pool.
+	 */
+	private int namespaceParallelism = DEFAULT_NAMESPACE_THREADS;
+
+	/**
+	 * Sets the number of namespaces, which are scanned concurrently.
+	 * @param threads the number of threads, at least one
+	 */
+	void setNamespaceThreads(int threads) {
+		if (threads != namespaceParallelism) {
+			namespaceThreads.shutdown();
+			namespaceThreads = createNamespaceThreads(threads);
+			namespaceParallelism = threads;
+		}
+	}
+
 	/**
 	 * Transforms the input system into a graph.
+	 * Every namespace is transformed into a subgraph concurrently and all subgraphs are merged into the graph.
+	 * The vertex names are qualified by their namespace, if the graph contains more than a single namespace.
 	 * @param client the kubernetes client class to connect to the kubernetes client
 	 * @param graph the graph to be filled with vertices and edges
 	 * @param connector the http connector to connect to the infrastructure server to get the edges of the graph
 	 * @param install true if the kubernetes infrastructure needs to be installed in the cluster
+	 * @param mock true if the endpoints of the services are used as edges of the graph
 	 * @throws ApiException thrown if the list call to the kubernetes client fails.
 	 * @throws GraphException  thrown if an operation can't be performed on a graph
 	 * @throws InterruptedException thrown if a user interrupts the thread
 	 */
 	void transform(KubClient client, Graph graph, HttpConnector connector, boolean install, boolean mock) throws ApiException, GraphException, InterruptedException {
-		Map<String, String> pods = client.getPodList();
-		int serviceIndex = graph.getVertices().size();
-		int podIndex = 0;
-		for (Map.Entry<String, String> pod : pods.entrySet()) {
-			ModifiableVertex vertex = new Vertex(pod.getValue(), podIndex + serviceIndex);
-			graph.addVertex(vertex);
-			podIndex++;
-		}
-		serviceIndex = graph.getVertices().size();
-		List<String> services = client.getServiceList();
-		for (int i = 0; i < services.size(); i++) {
-			ModifiableVertex vertex = new Vertex(services.get(i), i + serviceIndex);
-			graph.addVertex(vertex);
-		}
-		if (install) {
-			KubDetectorRegistry registry = new KubDetectorRegistry(client);
-			registry.register();
-		}
-		graph.generateAdjacencyMatrices();
+		// all requests are independent of each other, so they are sent at once and the graph is built as soon as they are received
+		CompletableFuture<Map<String, String>> fetch = null;
+		if (!mock && !install) {
+			fetch = connector.fetchConnections(client); // the infrastructure is already installed, so the connections are received while listing the cluster
+		}
+		List<Future<NamespaceGraph>> scans = new ArrayList<>();
+		try {
+			List<String> namespaces = client.getNamespaces();
+			boolean qualified = namespaces.size() > 1;
+			for (String namespace : namespaces) {
+				scans.add(namespaceThreads.submit(() -> this.scanNamespace(client, namespace, qualified, mock)));
+			}
+			graph.generateAdjacencyMatrices();
+			Map<String, String> pods = new HashMap<>();
+			for (Future<NamespaceGraph> scan : scans) {
+				NamespaceGraph subgraph = await(scan);
+				graph.merge(subgraph.graph);
+				pods.putAll(subgraph.pods);
+			}
+			if (install) {
+				KubDetectorRegistry registry = new KubDetectorRegistry(client);
+				registry.register();
+			}
+			if (!mock) {
+				Map<String, String> connections;
+				if (fetch != null) {
+					connections = connector.getConnections(pods, fetch);
+				} else {
+					connections = connector.getConnections(pods, client, install);
+				}
+				for (Map.Entry<String, String> connection : connections.entrySet()) {
+					graph.addEdge(graph.getVertexByName(connection.getKey()), graph.getVertexByName(connection.getValue()), 0);
+				}
+			}
+		} finally {
+			for (Future<NamespaceGraph> scan : scans) {
+				scan.cancel(true);
+			}
+			if (fetch != null) {
+				fetch.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * Transforms the pods, services and endpoints of a single namespace into a subgraph.
+	 * @param client the kubernetes client class to connect to the kubernetes client
+	 * @param namespace the namespace to transform
+	 * @param qualified true if the vertex names are qualified by the namespace
+	 * @param mock true if the endpoints of the services are used as edges of the graph
+	 * @return the subgraph of the namespace with a generated adjacency matrix
+	 * @throws ApiException thrown if the list call to the kubernetes client fails.
+	 * @throws GraphException  thrown if an operation can't be performed on a graph
+	 * @throws InterruptedException thrown if a user interrupts the thread
+	 */
+	private NamespaceGraph scanNamespace(KubClient client, String namespace, boolean qualified, boolean mock) throws ApiException, GraphException, InterruptedException {
+		CompletableFuture<Map<String, String>> podList = client.getPodListAsync(namespace, qualified);
+		CompletableFuture<List<String>> serviceList = client.getServiceListAsync(namespace, qualified);
+		CompletableFuture<List<List<String>>> endpointList = null;
 		if (mock) {
-			List<List<String>> ends = client.getEndpointList();
-			for (List<String> end : ends) {
-				graph.addEdge(graph.getVertexByName(end.get(0)), graph.getVertexByName(end.get(1)), 0);
+			endpointList = client.getEndpointListAsync(namespace, qualified);
+		}
+		try {
+			Graph subgraph = new Graph();
+			Map<String, String> pods = KubClient.await(podList);
+			for (Map.Entry<String, String> pod : pods.entrySet()) {
+				subgraph.addVertex(new Vertex(pod.getValue(), subgraph.getVertices().size()));
+			}
+			List<String> services = KubClient.await(serviceList);
+			for (String service : services) {
+				subgraph.addVertex(new Vertex(service, subgraph.getVertices().size()));
+			}
+			subgraph.generateAdjacencyMatrices();
+			if (endpointList != null) {
+				for (List<String> end : KubClient.getEndpointList(KubClient.await(endpointList), services)) {
+					int source = subgraph.getIndexByName(end.get(0));
+					int dest = subgraph.getIndexByName(end.get(1));
+					if (source >= 0 && dest >= 0 && source != dest) { // the pod might not be selected
+						subgraph.addEdgeByIndex(source, dest, 0);
+					}
+				}
+			}
+			return new NamespaceGraph(subgraph, pods);
+		} finally {
+			podList.cancel(true);
+			serviceList.cancel(true);
+			if (endpointList != null) {
+				endpointList.cancel(true);
 			}
+		}
+	}
+
+	/**
+	 * Waits for the subgraph of a namespace.
+	 * @param scan the scan of the namespace
+	 * @return the subgraph of the namespace
+	 * @throws ApiException thrown if the list call to the kubernetes client fails.
+	 * @throws GraphException  thrown if an operation can't be performed on a graph
+	 * @throws InterruptedException thrown if a user interrupts the thread
+	 */
+	private static NamespaceGraph await(Future<NamespaceGraph> scan) throws ApiException, GraphException, InterruptedException {
+		try {
+			return scan.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof ApiException) {
+				throw (ApiException) e.getCause();
+			} else if (e.getCause() instanceof GraphException) {
+				throw (GraphException) e.getCause();
+			} else if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else {
+				throw new ApiException("The transformation of a namespace failed: " + e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * Creates a bounded pool of threads to scan the namespaces of the cluster.
+	 * @param threads the number of threads
+	 * @return the thread pool
+	 */
+	private static ExecutorService createNamespaceThreads(int threads) {
+		return Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "namespace-scan");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Updates a graph with all changes of the input system received by a cluster watcher since the last update instead of transforming the whole system again.
+	 * The edges between the pods are received from the infrastructure server again, since the connections are not watched.
+	 * @param client the kubernetes client class to connect to the kubernetes client
+	 * @param watcher the cluster watcher which received the changes of the pods, services and endpoints
+	 * @param graph the graph to be updated, whose adjacency matrix is already generated
+	 * @param connector the http connector to connect to the infrastructure server to get the edges of the graph
+	 * @param mock true if the endpoints of the services are used as edges of the graph
+	 * @throws ApiException thrown if the call to the kubernetes client fails.
+	 * @throws GraphException  thrown if an operation can't be performed on a graph
+	 * @throws InterruptedException thrown if a user interrupts the thread
+	 */
+	void update(KubClient client, ClusterWatcher watcher, Graph graph, HttpConnector connector, boolean mock) throws ApiException, GraphException, InterruptedException {
+		if (mock) {
+			watcher.applyChanges(graph);
 		} else {
-			Map<String, String> connections = connector.getConnections(pods, client, install);
+			CompletableFuture<Map<String, String>> fetch = connector.fetchConnections(client);
+			Map<String, String> connections;
+			try {
+				watcher.applyChanges(graph);
+				connections = connector.getConnections(watcher.getPods(), fetch);
+			} finally {
+				fetch.cancel(true);
+			}
+			graph.removeEdges();
 			for (Map.Entry<String, String> connection : connections.entrySet()) {
-				graph.addEdge(graph.getVertexByName(connection.getKey()), graph.getVertexByName(connection.getValue()), 0);
+				int source = graph.getIndexByName(connection.getKey());
+				int dest = graph.getIndexByName(connection.getValue());
+				if (source >= 0 && dest >= 0 && source != dest) {
+					graph.addEdgeByIndex(source, dest, 0);
+				}
 			}
 		}
 	}
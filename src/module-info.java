@@ -12,6 +12,9 @@ module detector {
 	requires okhttp3;
 	requires gson;
 	requires ejml.simple;
+	requires ejml.core;
+	requires ejml.ddense;
 	requires javafx.fxml;
 	requires jdk.httpserver;
+	requires slf4j.api;
 }
\ No newline at end of file
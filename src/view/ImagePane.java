@@ -108,8 +108,9 @@ public class ImagePane extends Pane {
 				layout.execute();
 			}
 			for (int i = 0; i < imgpane.getGraph().getVertices().size(); i++) {
-				for (int j = 0; j < imgpane.getGraph().getVertices().size(); j++) {
-					if (imgpane.getGraph().getAdjacencyMatrix()[i][j] == 1 && !imgpane.addEdge(imgpane.getCellByIndex(i), imgpane.getCellByIndex(j))) {
+				for (int k = 0; k < imgpane.getGraph().getOutDegree(i); k++) {
+					int j = imgpane.getGraph().getOutNeighbour(i, k);
+					if (!imgpane.addEdge(imgpane.getCellByIndex(i), imgpane.getCellByIndex(j))) {
 						throw new GraphException("One of the connected cells of an edge is null. This occurs while edge creation.");
 					}
 				}